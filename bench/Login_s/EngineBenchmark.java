@@ -0,0 +1,162 @@
+package Login_s;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ *EngineBenchmark class
+ * JMH benchmarks for the hot paths of the MinefieldModel game engine,
+ * at the three GameDifficulty sizes and a few huge custom sizes.
+ * Boards are written as rows x columns x mines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+	/** Board parameters shared by every benchmark state. */
+	@State(Scope.Benchmark)
+	public static class Board {
+
+		@Param({"10x10x10", "15x15x70", "20x20x120", "200x200x6000", "1000x1000x150000", "2000x2000x400000"})
+		public String board;
+
+		int rows, columns, mines;
+
+		@Setup(Level.Trial)
+		public void parse() {
+			String[] size = board.split("x");
+			rows = Integer.parseInt(size[0]);
+			columns = Integer.parseInt(size[1]);
+			mines = Integer.parseInt(size[2]);
+		}
+	}
+
+
+	/** A model that is reused, and reset by the benchmark itself. */
+	@State(Scope.Thread)
+	public static class Reused {
+
+		MinefieldModel model;
+		long seed;
+
+		@Setup(Level.Trial)
+		public void create(Board board) {
+			model = new MinefieldModel(board.rows, board.columns);
+			model.newGame(board.mines, seed);
+		}
+	}
+
+
+	/** A freshly generated, unstarted board for every invocation. */
+	@State(Scope.Thread)
+	public static class Fresh {
+
+		MinefieldModel model;
+		int emptyCell, numberCell;
+		long seed;
+
+		@Setup(Level.Trial)
+		public void create(Board board) {
+			model = new MinefieldModel(board.rows, board.columns);
+		}
+
+		@Setup(Level.Invocation)
+		public void generate(Board board) {
+			model.newGame(board.mines, seed++);
+			emptyCell = numberCell = -1;
+			for (int i = 0; i < model.getCellCount() && (emptyCell < 0 || numberCell < 0); i++)
+				if (!model.isMine(i))
+					if (model.getNearbyMines(i) == 0) {
+						if (emptyCell < 0) emptyCell = i;
+					}
+					else if (numberCell < 0) numberCell = i;
+		}
+	}
+
+
+	/** A started board with one revealed number whose mines are all
+	 *  flagged, ready to be chorded. */
+	@State(Scope.Thread)
+	public static class Chord {
+
+		MinefieldModel model;
+		int cell;
+		long seed;
+
+		@Setup(Level.Trial)
+		public void create(Board board) {
+			model = new MinefieldModel(board.rows, board.columns);
+		}
+
+		@Setup(Level.Invocation)
+		public void prepare(Board board) {
+			do {
+				model.newGame(board.mines, seed++);
+				cell = -1;
+				for (int i = 0; i < model.getCellCount() && cell < 0; i++)
+					if (!model.isMine(i) && model.getNearbyMines(i) > 0)
+						cell = i;
+			} while (cell < 0);
+			model.reveal(cell);
+			int row = cell / board.columns, col = cell % board.columns;
+			for (int r = row - 1; r <= row + 1; r++)
+				for (int c = col - 1; c <= col + 1; c++)
+					if (model.isValidCellLocation(r, c) && model.isMine(model.indexOf(r, c)))
+						model.toggleFlag(model.indexOf(r, c));
+		}
+	}
+
+
+	/** Allocates a new model and places its mines (addMinesRandomly). */
+	@Benchmark
+	public MinefieldModel placeMines(Board board, Reused state) {
+		MinefieldModel model = new MinefieldModel(board.rows, board.columns);
+		model.newGame(board.mines, state.seed++);
+		return model;
+	}
+
+	/** Resets a model of the same size for a new game (resetCells). */
+	@Benchmark
+	public MinefieldModel resetBoard(Board board, Reused state) {
+		state.model.newGame(board.mines, state.seed++);
+		return state.model;
+	}
+
+	/** Looks up the nearby mine count of every cell (getNearbyMines). */
+	@Benchmark
+	public void nearbyMines(Reused state, Blackhole bh) {
+		MinefieldModel model = state.model;
+		for (int i = 0; i < model.getCellCount(); i++)
+			bh.consume(model.getNearbyMines(i));
+	}
+
+	/** Reveals an empty cell, cascading through its whole opening. */
+	@Benchmark
+	public int floodFillReveal(Fresh state) {
+		int cell = state.emptyCell >= 0 ? state.emptyCell : state.numberCell;
+		if (cell >= 0)
+			state.model.reveal(cell);
+		return state.model.getClearedCellCount();
+	}
+
+	/** Reveals the neighbors of a fully flagged number (forceRevealNeighbors). */
+	@Benchmark
+	public int chord(Chord state) {
+		state.model.forceRevealNeighbors(state.cell);
+		return state.model.getClearedCellCount();
+	}
+
+	/** Gives up on a started game, revealing every mine and flag. */
+	@Benchmark
+	public int gameOverReveal(Fresh state) {
+		if (state.numberCell >= 0)
+			state.model.reveal(state.numberCell);
+		state.model.giveUp();
+		return state.model.getFlagCount();
+	}
+}
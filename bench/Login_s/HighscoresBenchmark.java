@@ -0,0 +1,60 @@
+package Login_s;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ *HighscoresBenchmark class
+ * JMH benchmarks for adding highscores to a full list
+ * and for loading a list from its file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HighscoresBenchmark {
+
+	/** Number of highscores kept in the list. */
+	@Param({"10", "1000", "100000"})
+	public int size;
+
+	private Highscores highscores;
+	private SplittableRandom random;
+	private File file;
+
+	@Setup(Level.Trial)
+	public void fill() throws IOException {
+		random = new SplittableRandom(size);
+		highscores = new Highscores(size);
+		while (highscores.size() < size)
+			highscores.add("player " + highscores.size(), random.nextInt(1, 3600));
+		file = File.createTempFile("highscores", ".txt");
+		file.deleteOnExit();
+		highscores.saveToFile(file.getPath());
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		file.delete();
+	}
+
+	/** Adds a random score to a full list (Highscores.add). */
+	@Benchmark
+	public boolean add() {
+		return highscores.add("benchmark", random.nextInt(1, 3600));
+	}
+
+	/** Loads the whole list from its file (Highscores.loadFromFile). */
+	@Benchmark
+	public int loadFromFile() {
+		Highscores loaded = new Highscores(size);
+		loaded.loadFromFile(file.getPath());
+		return loaded.size();
+	}
+}
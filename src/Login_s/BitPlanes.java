@@ -0,0 +1,61 @@
+package Login_s;
+
+
+/**
+ *BitPlanes class
+ * Static helpers for bit planes: one bit per cell, packed into a long[].
+ * Bits beyond the last cell are always kept clear, so whole-word
+ * operations never see phantom cells.
+ */
+final class BitPlanes {
+
+	private BitPlanes() {}
+
+	/** Returns a cleared plane large enough for the given number of cells. */
+	static long[] create(int cells) {
+		return new long[(cells + 63) >>> 6];
+	}
+
+	static boolean get(long[] plane, int index) {
+		return (plane[index >>> 6] & (1L << index)) != 0;
+	}
+
+	static void set(long[] plane, int index) {
+		plane[index >>> 6] |= 1L << index;
+	}
+
+	static void clear(long[] plane, int index) {
+		plane[index >>> 6] &= ~(1L << index);
+	}
+
+	/** Sets the first given number of bits and clears all others. */
+	static void fill(long[] plane, int cells) {
+		java.util.Arrays.fill(plane, -1L);
+		if ((cells & 63) != 0)
+			plane[plane.length - 1] = -1L >>> (64 - (cells & 63));
+	}
+
+	/** Returns the number of set bits. */
+	static int count(long[] plane) {
+		int count = 0;
+		for (long word : plane)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	/** Returns the number of bits set in both planes. */
+	static int countAnd(long[] a, long[] b) {
+		int count = 0;
+		for (int w = 0; w < a.length; w++)
+			count += Long.bitCount(a[w] & b[w]);
+		return count;
+	}
+
+	/** Returns the number of bits set in the first plane but not the second. */
+	static int countAndNot(long[] a, long[] b) {
+		int count = 0;
+		for (int w = 0; w < a.length; w++)
+			count += Long.bitCount(a[w] & ~b[w]);
+		return count;
+	}
+}
@@ -0,0 +1,56 @@
+package Login_s;
+
+
+/**
+ *BoardMetrics class
+ * Difficulty metrics of one board layout. An opening is a connected region
+ * of empty cells, which one click reveals together with the numbers around
+ * it. An isolated number borders no empty cell and takes a click of its
+ * own. The 3BV, the least number of clicks that clear the board without
+ * flags, is the sum of the two.
+ * The metrics are derived from the board's Openings, which are labelled
+ * in linear time with a union-find over the empty cells.
+ */
+public final class BoardMetrics {
+
+	private final int openings, isolatedNumbers;
+
+	private BoardMetrics(int openings, int isolatedNumbers) {
+		this.openings = openings;
+		this.isolatedNumbers = isolatedNumbers;
+	}
+
+
+	/** Returns the least number of clicks that clear the board without flags. */
+	public int get3BV() {
+		return openings + isolatedNumbers;
+	}
+
+	/** Returns the number of connected regions of empty cells. */
+	public int getOpenings() {
+		return openings;
+	}
+
+	/** Returns the number of numbered cells that border no empty cell. */
+	public int getIsolatedNumbers() {
+		return isolatedNumbers;
+	}
+
+	/** Returns the 3BV per second of a game that cleared the board
+	 *  in the given number of milliseconds. */
+	public static double getRate(int threeBV, int millis) {
+		return threeBV * 1000.0 / Math.max(millis, 1);
+	}
+
+	@Override
+	public String toString() {
+		return "3BV " + get3BV() + " (" + openings + " openings, " + isolatedNumbers + " isolated numbers)";
+	}
+
+
+	/** Computes the metrics of the current mine layout of a board
+	 *  from its labelled openings. */
+	static BoardMetrics compute(Openings openings) {
+		return new BoardMetrics(openings.size(), openings.getIsolatedNumbers());
+	}
+}
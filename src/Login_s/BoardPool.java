@@ -0,0 +1,178 @@
+package Login_s;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+
+/**
+ *BoardPool class
+ * Keeps a few ready-made boards for each board size, generated by
+ * background worker threads, so a new game can start without
+ * generating its board on the event dispatch thread.
+ */
+public class BoardPool {
+
+	/**
+	 *Receiver interface
+	 * Given a board taken from the pool once it is ready.
+	 */
+	public interface Receiver {
+		void boardReady(MinefieldModel board);
+	}
+
+	/** Number of ready boards kept per board size. */
+	private static final int
+	BOARDS_PER_SIZE	= 3,
+	MAX_SIZES		= 8;
+
+	private final ExecutorService workers;
+
+	@SuppressWarnings("serial")
+	private final Map<String, Pool> pools = new LinkedHashMap<String, Pool>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Pool> eldest) {
+			return size() > MAX_SIZES;
+		}
+	};
+
+	/** Creates a BoardPool with one daemon worker thread
+	 *  per two available processors. */
+	public BoardPool() {
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "BoardPool worker " + count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+	}
+
+
+	/** Starts filling the pool for the given board size in the background. */
+	public void prefill(int rows, int columns, int mines) {
+		getPool(rows, columns, mines).refill();
+	}
+
+	/** Returns a new, unstarted board of the given size. A pre-built board
+	 *  is returned if one is ready; otherwise one is generated right away.
+	 *  Either way, the pool for that size is refilled in the background. */
+	public MinefieldModel take(int rows, int columns, int mines) {
+		Pool pool = getPool(rows, columns, mines);
+		MinefieldModel board = pool.boards.poll();
+		pool.refill();
+		return board != null ? board : generate(rows, columns, mines);
+	}
+
+	/** Hands a new, unstarted board of the given size to the receiver.
+	 *  A pre-built board is handed over at once, on the calling thread;
+	 *  otherwise the receiver is given the next board a worker builds, on
+	 *  the Swing event thread, so the caller never waits for a slow
+	 *  generator. The pool for that size is refilled in the background. */
+	public void take(int rows, int columns, int mines, Receiver receiver) {
+		Pool pool = getPool(rows, columns, mines);
+		MinefieldModel board;
+		synchronized (pool) {
+			board = pool.boards.poll();
+			if (board == null)
+				pool.receivers.add(receiver);
+		}
+		pool.refill();
+		if (board != null)
+			receiver.boardReady(board);
+	}
+
+	/** Stops all worker threads. Boards that are not yet taken are dropped. */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+
+	/** Generates one board. Called from worker threads, and from take()
+	 *  when no pre-built board is ready. */
+	protected MinefieldModel generate(int rows, int columns, int mines) {
+		MinefieldModel board = new MinefieldModel(rows, columns);
+		board.newGame(mines);
+		return board;
+	}
+
+	private Pool getPool(int rows, int columns, int mines) {
+		String key = rows + "x" + columns + "x" + mines;
+		synchronized (pools) {
+			Pool pool = pools.get(key);
+			if (pool == null) {
+				pool = new Pool(rows, columns, mines);
+				pools.put(key, pool);
+			}
+			return pool;
+		}
+	}
+
+
+	/**
+	 *Pool class
+	 * Bounded queue of ready boards of one size, the number of boards
+	 * that workers are currently generating for it, and the receivers
+	 * waiting for one, which get the next boards built.
+	 */
+	private class Pool implements Runnable {
+
+		private final int rows, columns, mines;
+		private final BlockingQueue<MinefieldModel> boards =
+			new ArrayBlockingQueue<MinefieldModel>(BOARDS_PER_SIZE);
+		private final AtomicInteger pending = new AtomicInteger();
+		private final Queue<Receiver> receivers = new ArrayDeque<Receiver>();
+
+		Pool(int rows, int columns, int mines) {
+			this.rows = rows;
+			this.columns = columns;
+			this.mines = mines;
+		}
+
+		/** Schedules as many boards as are missing from the queue. */
+		void refill() {
+			while (boards.size() + pending.get() < BOARDS_PER_SIZE + waiting()) {
+				pending.incrementAndGet();
+				try {
+					workers.execute(this);
+				} catch (RejectedExecutionException e) {
+					pending.decrementAndGet();
+					return;
+				}
+			}
+		}
+
+		private synchronized int waiting() {
+			return receivers.size();
+		}
+
+		@Override
+		public void run() {
+			try {
+				final MinefieldModel board = generate(rows, columns, mines);
+				final Receiver receiver;
+				synchronized (this) {
+					receiver = receivers.poll();
+					if (receiver == null)
+						boards.offer(board);
+				}
+				if (receiver != null)
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							receiver.boardReady(board);
+						}
+					});
+			} finally {
+				pending.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package Login_s;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+
+import javax.swing.Timer;
+
+
+/**
+ *ClockTicker class
+ * One tick source shared by every clock display, on the Swing event
+ * thread. Rather than firing at a fixed rate, it wakes up once, when the
+ * first of its clients next needs a tick, and asks each client when that
+ * will be again; a clock showing seconds is ticked once per second, just
+ * after the second changes. With no clients it does not wake up at all.
+ * All methods must be called on the event thread.
+ */
+final class ClockTicker {
+
+	/**
+	 *Client interface
+	 * Something the ticker ticks, such as a running clock display.
+	 */
+	interface Client {
+		/** Updates the client, and returns the number of milliseconds
+		 *  until it next needs a tick. */
+		long tick();
+	}
+
+	private static final ArrayList<Client> clients = new ArrayList<Client>();
+	private static Timer timer;
+
+	private ClockTicker() {
+	}
+
+
+	/** Starts ticking a client, at once and then whenever it asks to be. */
+	static void add(Client client) {
+		if (!clients.contains(client))
+			clients.add(client);
+		tick();
+	}
+
+	/** Stops ticking a client; the ticker stops when it has none left. */
+	static void remove(Client client) {
+		clients.remove(client);
+		if (clients.isEmpty() && timer != null)
+			timer.stop();
+	}
+
+
+	/** Ticks every client, and sleeps until the first one needs a tick again. */
+	private static void tick() {
+		long delay = Long.MAX_VALUE;
+		for (int i = 0; i < clients.size(); i++)
+			delay = Math.min(delay, clients.get(i).tick());
+		if (clients.isEmpty())
+			return;
+		if (timer == null) {
+			timer = new Timer(0, new ActionListener() {
+				public void actionPerformed(ActionEvent event) {
+					tick();
+				}
+			});
+			timer.setRepeats(false);
+		}
+		timer.setInitialDelay((int) Math.max(1, Math.min(delay, Integer.MAX_VALUE)));
+		timer.restart();
+	}
+}
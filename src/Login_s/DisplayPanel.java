@@ -1,10 +1,5 @@
 package Login_s;
 
-import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.awt.*;
 import javax.swing.*;
 
@@ -12,14 +7,6 @@ import javax.swing.*;
 @SuppressWarnings("serial")
 public class DisplayPanel extends JPanel {
 	
-	private static final String
-	CLOCK_IMAGE_FILEPATH =	"images/clock.png",
-	MINE_IMAGE_FILEPATH =	"images/mine.png";
-	
-	private static Icon
-	CLOCK_ICON,
-	MINE_ICON;
-	
 	private static final Color
 	BACKGROUND_COLOR = new Color(32, 64, 128),
 	CLOCK_LABEL_COLOR = new Color(32, 64, 128),
@@ -38,7 +25,28 @@ public class DisplayPanel extends JPanel {
 	giveUpButton;
 	
 	Stopwatch stopwatch = new Stopwatch();
-	Timer timer;
+	
+	/** Text of the clock, rewritten in place; the milliseconds
+	 *  are only shown once the clock has stopped */
+	private final char[] clockText = " 00:00:00.000".toCharArray();
+	
+	/** Length of the clock's text without the milliseconds */
+	private static final int
+	SECONDS_LENGTH = 9;
+	
+	/** Time the clock shows, in milliseconds, or -1 before it shows any,
+	 *  and whether it shows the milliseconds */
+	private long clockMillis = -1;
+	private boolean clockExact;
+	
+	/** Ticks the running clock just after each new second */
+	private final ClockTicker.Client clockTicks = new ClockTicker.Client() {
+		public long tick() {
+			long millis = stopwatch.getElapsedTimeMillis();
+			setClock((int) (millis / 1000));
+			return 1000 - millis % 1000;
+		}
+	};
 
 	/** Creates a DisplayPanel instance and initializes all GUI components. */
 	DisplayPanel() {
@@ -47,22 +55,17 @@ public class DisplayPanel extends JPanel {
 		setBackground(BACKGROUND_COLOR);
 		setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
 		
-		try {
-			CLOCK_ICON = new ImageIcon(ImageIO.read(new File(CLOCK_IMAGE_FILEPATH)).getScaledInstance(HEIGHT - 8, HEIGHT - 8, Image.SCALE_SMOOTH));
-			MINE_ICON = new ImageIcon(ImageIO.read(new File(MINE_IMAGE_FILEPATH)).getScaledInstance(HEIGHT - 2, HEIGHT - 2, Image.SCALE_SMOOTH));
-		} catch (IOException e) {}
-		
 		clockLabel = new JLabel(" 00:00:00");
-		clockLabel.setIcon(CLOCK_ICON);
+		clockLabel.setIcon(IconAtlas.getIcon(IconAtlas.CLOCK_IMAGE_NAME, HEIGHT - 8));
 		clockLabel.setOpaque(true);
 		clockLabel.setBackground(CLOCK_LABEL_COLOR);
 		clockLabel.setForeground(LABEL_TEXT_COLOR);
-		clockLabel.setPreferredSize(new Dimension(240, HEIGHT));
+		clockLabel.setPreferredSize(new Dimension(330, HEIGHT));
 		clockLabel.setHorizontalAlignment(SwingConstants.CENTER);
 		clockLabel.setFont(new Font(getFont().getName(), Font.BOLD, HEIGHT - 10));
 			
 		mineLabel = new JLabel("10");		
-		mineLabel.setIcon(MINE_ICON);
+		mineLabel.setIcon(IconAtlas.getIcon(IconAtlas.MINE_IMAGE_NAME, HEIGHT - 2));
 		mineLabel.setOpaque(true);
 		mineLabel.setBackground(MINE_LABEL_COLOR);
 		mineLabel.setForeground(LABEL_TEXT_COLOR);
@@ -84,32 +87,28 @@ public class DisplayPanel extends JPanel {
 		add(Box.createHorizontalStrut(5));
 	}
 	
-	/** Begins incrementing the clock and updates the display every second. */
+	/** Begins incrementing the clock and updates the display every second,
+	 *  from the shared ClockTicker. Called on the event thread. */
 	public void startClock() {
 		stopwatch.start();
-		setClock(0);
-		timer = new Timer();
-		timer.schedule(new UpdateClockTask(), 0, 100);
+		ClockTicker.add(clockTicks);
 	}
 	
-	/** Stops the clock display at its current time. */
+	/** Stops the clock display at its current time, down to the
+	 *  millisecond, and returns that time in milliseconds. */
 	public int stopClock() {
 		stopwatch.stop();
-		int seconds = stopwatch.getElapsedTimeSecs();
-		setClock(seconds);
-		if (timer != null)
-			timer.cancel();
-		timer = null;
-		return seconds;
+		ClockTicker.remove(clockTicks);
+		int millis = (int) stopwatch.getElapsedTimeMillis();
+		setClockMillis(millis);
+		return millis;
 	}
 	
 	/** Resets the clock display to zero. */
 	public void resetClock() {
 		stopwatch.reset();
+		ClockTicker.remove(clockTicks);
 		setClock(0);
-		if (timer != null)
-			timer.cancel();
-		timer = null;
 	}
 	
 	/** Updates the mine counter display to the new given value. */
@@ -118,9 +117,36 @@ public class DisplayPanel extends JPanel {
 	}
 	
 	/** Updates the clock display to show the new given time,
-	 *  specified in seconds. */
+	 *  specified in seconds, if it does not show it already. */
 	public void setClock(int seconds) {
-		clockLabel.setText(String.format(" %02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60));
+		showClock(seconds * 1000L, false);
+	}
+	
+	/** Updates the clock display to show the new given time,
+	 *  specified in milliseconds, with the milliseconds. */
+	public void setClockMillis(long millis) {
+		showClock(millis, true);
+	}
+	
+	/** Writes the digits of a time into the clock's text in place,
+	 *  unless it shows that time already. */
+	private void showClock(long millis, boolean exact) {
+		if (millis == clockMillis && exact == clockExact)
+			return;
+		clockMillis = millis;
+		clockExact = exact;
+		long seconds = millis / 1000;
+		putDigits(1, (int) (seconds / 3600 % 100));
+		putDigits(4, (int) (seconds / 60 % 60));
+		putDigits(7, (int) (seconds % 60));
+		clockText[10] = (char) ('0' + millis / 100 % 10);
+		putDigits(11, (int) (millis % 100));
+		clockLabel.setText(String.valueOf(clockText, 0, exact ? clockText.length : SECONDS_LENGTH));
+	}
+	
+	private void putDigits(int at, int value) {
+		clockText[at] = (char) ('0' + value / 10);
+		clockText[at + 1] = (char) ('0' + value % 10);
 	}
 	
 	/** Returns the reset JButton for purposes of adding event listeners. */
@@ -132,15 +158,4 @@ public class DisplayPanel extends JPanel {
 	public JButton getGiveUpButton() {
 		return giveUpButton;
 	}
-	
-	/**
-	 * UpdateClockTask class
-	 *  Extended TimerTask class for the purpose
-	 * of updating the display clock of the panel.
-	 */
-	private class UpdateClockTask extends TimerTask {
-	    public void run() {
-	    	setClock(stopwatch.getElapsedTimeSecs());
-	    }
-	}
 }
@@ -0,0 +1,9 @@
+package Login_s;
+
+
+/** Enumeration of the predefined board sizes and mine counts. */
+enum GameDifficulty {
+	BEGINNER(10,10,10), INTERMEDIATE(15,15,70), EXPERT(20,20,120);
+	public final int rows, columns, mines;
+	GameDifficulty(int r, int c, int m) { rows = r; columns = c; mines = m; }
+}
@@ -0,0 +1,722 @@
+package Login_s;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+
+/**
+ *HighscoreStore class
+ * Crash-safe binary store of the highscores of every difficulty, kept in
+ * one directory as a snapshot and a log.
+ *
+ * The snapshot, highscores.<generation>.dat, holds each section (one per
+ * difficulty) as fixed-size records sorted by rank, and a dictionary of
+ * the names they use. It is opened through a MappedByteBuffer, so reading
+ * one page of a section touches only that page, however many records the
+ * archive holds. The snapshot is never written in place: compaction writes
+ * the next generation to a temporary file, forces it to disk and renames
+ * it, so a crash leaves either the old or the new snapshot whole.
+ *
+ * Every change since the snapshot is appended to highscores.log as a
+ * record with a CRC32 checksum, which costs O(1). Appends are forced to
+ * disk in batches, at most SYNC_DELAY milliseconds after they are made.
+ * On open, the log records newer than the snapshot are replayed; a torn
+ * or corrupt record ends the log, which is truncated there. Once the log
+ * holds COMPACT_THRESHOLD records, a background thread merges it into the
+ * next snapshot and empties it.
+ *
+ * Several processes may share the store. Every operation holds a lock on
+ * the log: a shared one to read, an exclusive one to change the store.
+ * The log header holds the current snapshot generation and a version
+ * counter, which every change increments. Under the lock, a process reads
+ * the version first, and only if another process changed it does it read
+ * the log records appended since, or map the newer snapshot. Changes are
+ * thus a read-merge-write cycle that never overwrites another process's
+ * records.
+ */
+public class HighscoreStore {
+
+	private static final int
+	SNAPSHOT_MAGIC		= 0x4D534853,	// "MSHS"
+	SNAPSHOT_FORMAT		= 1,
+	HEADER_SIZE			= 32,
+	SECTION_SIZE		= 12,
+	RECORD_SIZE			= 28,
+	LOG_MAGIC			= 0x4D53484C,	// "MSHL"
+	LOG_FORMAT			= 1,
+	LOG_HEADER_SIZE		= 24,
+	ENTRY_HEADER_SIZE	= 8,
+	LOG_PAYLOAD_SIZE	= 37,
+	MAX_NAME_BYTES		= 1024,
+	COMPACT_THRESHOLD	= 1024;
+
+	/** Longest time an appended record waits to be forced to disk. */
+	private static final long
+	SYNC_DELAY = 1000;
+
+	private static final byte
+	LOG_ADD		= 0,
+	LOG_CLEAR	= 1;
+
+	private static final String
+	LOG_NAME		= "highscores.log",
+	SNAPSHOT_PREFIX	= "highscores.",
+	SNAPSHOT_SUFFIX	= ".dat";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+
+	/**
+	 *Record class
+	 * One stored highscore. Records of a section are ordered by score, then
+	 * by submission time, then by the order in which they were stored.
+	 */
+	public static final class Record {
+		public final String name;
+		public final int score, threeBV;
+		public final long time, seed;
+
+		public Record(String name, int score, int threeBV, long time, long seed) {
+			this.name = name;
+			this.score = score;
+			this.threeBV = threeBV;
+			this.time = time;
+			this.seed = seed;
+		}
+	}
+
+	/** Rank order of records that were stored in the order given. */
+	private static int compare(Record a, Record b) {
+		int c = Integer.compare(a.score, b.score);
+		return c != 0 ? c : Long.compare(a.time, b.time);
+	}
+
+
+	private final File directory;
+	private final int sections, maxRecords;
+	private final FileChannel log;
+	private final ScheduledExecutorService worker;
+	private ScheduledFuture<?> pendingSync;
+	private long generation, sequence, snapshotSequence;
+
+	// Version of the store last seen, end of the log records read,
+	// and number of changes seen that other processes made
+	private long version, logPosition, externalChanges;
+
+	// The mapped snapshot, and what it holds per section
+	private MappedByteBuffer snapshot;
+	private final long[] recordOffset;
+	private final int[] recordCount;
+	private long namesOffset;
+	private String[] names;
+
+	// Records logged since the snapshot, sorted per section
+	private final List<List<Record>> tails;
+	private final boolean[] cleared;
+	private int logRecords;
+
+	/** Opens or creates the store in the given directory, with the given
+	 *  number of sections, each keeping up to maxRecords records. The
+	 *  log is replayed, and a torn record at its end is cut off. */
+	public static HighscoreStore open(File directory, int sections, int maxRecords) throws IOException {
+		return new HighscoreStore(directory, sections, maxRecords);
+	}
+
+	private HighscoreStore(File directory, int sections, int maxRecords) throws IOException {
+		this.directory = directory;
+		this.sections = sections;
+		this.maxRecords = maxRecords;
+		recordOffset = new long[sections];
+		recordCount = new int[sections];
+		cleared = new boolean[sections];
+		tails = new ArrayList<List<Record>>(sections);
+		for (int i = 0; i < sections; i++)
+			tails.add(new ArrayList<Record>());
+		directory.mkdirs();
+		log = FileChannel.open(new File(directory, LOG_NAME).toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		FileLock lock = log.lock();
+		try {
+			if (log.size() < LOG_HEADER_SIZE) {
+				generation = findNewestSnapshot();
+				log.truncate(0);
+				writeLogHeader();
+			}
+			else {
+				ByteBuffer header = readLogHeader();
+				if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != LOG_FORMAT)
+					throw new IOException("Not a highscore log: " + LOG_NAME);
+				version = header.getLong(8);
+				generation = header.getLong(16);
+			}
+			openSnapshot();
+			logPosition = LOG_HEADER_SIZE;
+			replayLog(true);
+		} catch (IOException e) {
+			log.close();
+			throw e;
+		} finally {
+			if (lock.isValid())
+				lock.release();
+		}
+		worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "HighscoreStore worker");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+
+	/** Returns true if the store holds no snapshot and no logged records. */
+	public synchronized boolean isEmpty() {
+		refreshQuietly();
+		return snapshot == null && logRecords == 0;
+	}
+
+	/** Returns the number of changes made by other processes that this
+	 *  one has seen. Whoever keeps records read from the store reads them
+	 *  again when this number changes. */
+	public synchronized long getExternalChanges() {
+		refreshQuietly();
+		return externalChanges;
+	}
+
+	/** Returns the number of records in a section, up to maxRecords. */
+	public synchronized int size(int section) {
+		refreshQuietly();
+		return count(section);
+	}
+
+	/** Returns the record with the given rank, starting at 1, in a section.
+	 *  Only that record is read from the snapshot. */
+	public synchronized Record get(int section, int rank) {
+		// The first rank records hold t logged and rank - t snapshot records;
+		// find the largest t whose last logged record ranks before the
+		// snapshot record that comes next
+		refreshQuietly();
+		List<Record> tail = tails.get(section);
+		int n = snapshotCount(section);
+		int lo = Math.max(0, rank - n), hi = Math.min(rank, tail.size());
+		while (lo < hi) {
+			int t = (lo + hi + 1) >>> 1;
+			if (rank - t >= n || compare(tail.get(t - 1), readRecord(section, rank - t)) < 0)
+				lo = t;
+			else
+				hi = t - 1;
+		}
+		int t = lo;
+		if (t == 0)
+			return readRecord(section, rank - 1);
+		if (rank - t == 0)
+			return tail.get(t - 1);
+		Record logged = tail.get(t - 1), stored = readRecord(section, rank - t - 1);
+		return compare(logged, stored) < 0 ? stored : logged;
+	}
+
+	/** Returns all records of a section, in rank order. */
+	public synchronized List<Record> getAll(int section) {
+		refreshQuietly();
+		return merge(section, maxRecords);
+	}
+
+	/** Returns the best records of a section, up to the given number, in
+	 *  rank order. Only those records are read from the snapshot. */
+	public synchronized List<Record> getFirst(int section, int count) {
+		refreshQuietly();
+		return merge(section, Math.min(count, maxRecords));
+	}
+
+	/** Appends a record to a section. */
+	public void add(int section, Record record) throws IOException {
+		addAll(section, Collections.singletonList(record));
+	}
+
+	/** Appends records to a section, with a single write to the log. */
+	public synchronized void addAll(int section, List<Record> records) throws IOException {
+		FileLock lock = lock(true);
+		try {
+			append(section, records);
+		} finally {
+			lock.release();
+		}
+	}
+
+	/** Fills an empty store with the given records of each section, and
+	 *  compacts it, all under one lock, so when several processes start
+	 *  together only one of them does it. Returns false, leaving the store
+	 *  as it is, if it was not empty. */
+	public synchronized boolean importIfEmpty(List<List<Record>> records) throws IOException {
+		FileLock lock = lock(true);
+		try {
+			if (snapshot != null || logRecords != 0)
+				return false;
+			for (int s = 0; s < records.size(); s++)
+				if (!records.get(s).isEmpty())
+					append(s, records.get(s));
+			compactLocked();
+			return true;
+		} finally {
+			lock.release();
+		}
+	}
+
+	/** Removes all records of a section. */
+	public synchronized void clear(int section) throws IOException {
+		FileLock lock = lock(true);
+		try {
+			ByteBuffer payload = ByteBuffer.allocate(LOG_PAYLOAD_SIZE);
+			payload.putLong(++sequence).put(LOG_CLEAR).putInt(section);
+			appendToLog(payload);
+			cleared[section] = true;
+			tails.get(section).clear();
+		} finally {
+			lock.release();
+		}
+	}
+
+	/** Forces all appended records to disk. */
+	public synchronized void sync() throws IOException {
+		if (pendingSync != null) {
+			pendingSync.cancel(false);
+			pendingSync = null;
+		}
+		log.force(false);
+	}
+
+	/** Merges the log into a new snapshot generation and empties the log.
+	 *  The log header names the new generation before the log is emptied,
+	 *  so a crash in between only leaves records the snapshot has already. */
+	public synchronized void compact() throws IOException {
+		FileLock lock = lock(true);
+		try {
+			compactLocked();
+		} finally {
+			lock.release();
+		}
+	}
+
+	/** Forces the log to disk, once the background thread has finished
+	 *  what it is doing, such as a sync or a compaction, and closes it.
+	 *  The thread is not interrupted, since that would close the log
+	 *  under a write or force in progress. */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (pendingSync != null)
+				pendingSync.cancel(false);
+		}
+		worker.shutdown();
+		boolean interrupted = false;
+		while (true)
+			try {
+				if (worker.awaitTermination(1, TimeUnit.SECONDS))
+					break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		synchronized (this) {
+			sync();
+			log.close();
+		}
+	}
+
+
+	/** Appends records to a section. The log must be locked exclusively. */
+	private void append(int section, List<Record> records) throws IOException {
+		ByteBuffer[] payloads = new ByteBuffer[records.size()];
+		for (int i = 0; i < payloads.length; i++) {
+			Record record = records.get(i);
+			byte[] name = encodeName(record.name);
+			payloads[i] = ByteBuffer.allocate(LOG_PAYLOAD_SIZE + name.length);
+			payloads[i].putLong(++sequence).put(LOG_ADD).putInt(section)
+				.putInt(record.score).putInt(record.threeBV).putLong(record.time).putLong(record.seed)
+				.put(name);
+		}
+		appendToLog(payloads);
+		for (Record record : records)
+			insert(tails.get(section), record);
+	}
+
+	/** Merges the log into a new snapshot, as compact() does. The log must
+	 *  be locked exclusively. */
+	private void compactLocked() throws IOException {
+		List<List<Record>> all = new ArrayList<List<Record>>(sections);
+		for (int s = 0; s < sections; s++)
+			all.add(merge(s, maxRecords));
+		long next = generation + 1;
+		File target = snapshotFile(next);
+		File temp = new File(directory, target.getName() + ".tmp");
+		writeSnapshot(temp, all);
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		File old = snapshotFile(generation);
+		generation = next;
+		version++;
+		writeLogHeader();
+		log.force(true);
+		log.truncate(LOG_HEADER_SIZE);
+		log.force(true);
+		mapSnapshot(target);
+		old.delete();	// may fail while still mapped; open() cleans it up
+		for (int s = 0; s < sections; s++) {
+			tails.get(s).clear();
+			cleared[s] = false;
+		}
+		logPosition = LOG_HEADER_SIZE;
+		logRecords = 0;
+	}
+
+	/** Locks the log, shared or exclusively, and catches up with the
+	 *  changes other processes made since the store was last used. */
+	private FileLock lock(boolean exclusive) throws IOException {
+		FileLock lock = log.lock(0, Long.MAX_VALUE, !exclusive);
+		try {
+			refresh(exclusive);
+		} catch (IOException e) {
+			lock.release();
+			throw e;
+		}
+		return lock;
+	}
+
+	/** Catches up with other processes to read the store; if the log
+	 *  cannot be read, the records read before are used. */
+	private void refreshQuietly() {
+		try {
+			lock(false).release();
+		} catch (IOException e) {
+			// keep what was read before
+		}
+	}
+
+	/** Reads the version in the log header, and if another process changed
+	 *  it, maps the newer snapshot it names, or reads the log records it
+	 *  appended. Only a process holding the lock exclusively truncates a
+	 *  torn log, since no other process can be writing to it then. */
+	private void refresh(boolean exclusive) throws IOException {
+		ByteBuffer header = readLogHeader();
+		if (header.getLong(8) == version)
+			return;
+		externalChanges++;
+		version = header.getLong(8);
+		if (header.getLong(16) != generation) {
+			generation = header.getLong(16);
+			mapSnapshot(snapshotFile(generation));
+			for (int s = 0; s < sections; s++) {
+				tails.get(s).clear();
+				cleared[s] = false;
+			}
+			logPosition = LOG_HEADER_SIZE;
+			logRecords = 0;
+		}
+		replayLog(exclusive);
+	}
+
+	private ByteBuffer readLogHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+		while (header.hasRemaining() && log.read(header, header.position()) >= 0)
+			;
+		return header;
+	}
+
+	private void writeLogHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+		header.putInt(LOG_MAGIC).putInt(LOG_FORMAT).putLong(version).putLong(generation);
+		header.flip();
+		while (header.hasRemaining())
+			log.write(header, header.position());
+	}
+
+	/** Merges the snapshot records of a section with those logged since,
+	 *  up to the given number of records. */
+	private List<Record> merge(int section, int limit) {
+		List<Record> all = new ArrayList<Record>(Math.min(count(section), limit));
+		List<Record> tail = tails.get(section);
+		int n = snapshotCount(section), i = 0, j = 0;
+		while (all.size() < limit && (i < n || j < tail.size())) {
+			Record stored = i < n ? readRecord(section, i) : null;
+			if (stored != null && (j == tail.size() || compare(stored, tail.get(j)) <= 0)) {
+				all.add(stored);
+				i++;
+			} else
+				all.add(tail.get(j++));
+		}
+		return all;
+	}
+
+	private int count(int section) {
+		return Math.min(snapshotCount(section) + tails.get(section).size(), maxRecords);
+	}
+
+	private int snapshotCount(int section) {
+		return cleared[section] ? 0 : recordCount[section];
+	}
+
+	/** Inserts a record after every record that does not rank below it. */
+	private static void insert(List<Record> records, Record record) {
+		int lo = 0, hi = records.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(records.get(mid), record) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		records.add(lo, record);
+	}
+
+	/** Writes checksummed records to the end of the log, and a new version
+	 *  to its header, and makes sure they are forced to disk soon, together
+	 *  with any that follow them. The log must be locked exclusively. */
+	private void appendToLog(ByteBuffer... payloads) throws IOException {
+		int length = 0;
+		for (ByteBuffer payload : payloads)
+			length += ENTRY_HEADER_SIZE + payload.capacity();
+		ByteBuffer records = ByteBuffer.allocate(length);
+		CRC32 crc = new CRC32();
+		for (ByteBuffer payload : payloads) {
+			crc.reset();
+			crc.update(payload.array(), 0, payload.capacity());
+			records.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array());
+		}
+		records.flip();
+		while (records.hasRemaining())
+			logPosition += log.write(records, logPosition);
+		logRecords += payloads.length;
+		version++;
+		writeLogHeader();
+		if (worker.isShutdown())
+			return;
+		if (pendingSync == null || pendingSync.isDone())
+			pendingSync = worker.schedule(new Runnable() {
+				public void run() {
+					try {
+						sync();
+					} catch (IOException e) {
+						// forced again by the next sync or close
+					}
+				}
+			}, SYNC_DELAY, TimeUnit.MILLISECONDS);
+		if (logRecords >= COMPACT_THRESHOLD)
+			worker.execute(new Runnable() {
+				public void run() {
+					try {
+						synchronized (HighscoreStore.this) {
+							if (logRecords >= COMPACT_THRESHOLD)
+								compact();
+						}
+					} catch (IOException e) {
+						// the log still holds every record; try again later
+					}
+				}
+			});
+	}
+
+	/** Reads the log records past those read before that are newer than
+	 *  the snapshot. The first record that is torn or fails its checksum
+	 *  ends the log; if the log is locked exclusively, it is cut off there. */
+	private void replayLog(boolean exclusive) throws IOException {
+		long size = log.size(), position = logPosition;
+		ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		while (position + ENTRY_HEADER_SIZE <= size) {
+			header.clear();
+			log.read(header, position);
+			header.flip();
+			int length = header.getInt(), checksum = header.getInt();
+			if (length < LOG_PAYLOAD_SIZE || length > LOG_PAYLOAD_SIZE + MAX_NAME_BYTES
+					|| position + ENTRY_HEADER_SIZE + length > size)
+				break;
+			ByteBuffer payload = ByteBuffer.allocate(length);
+			log.read(payload, position + ENTRY_HEADER_SIZE);
+			crc.reset();
+			crc.update(payload.array(), 0, length);
+			if ((int) crc.getValue() != checksum)
+				break;
+			payload.flip();
+			long recordSequence = payload.getLong();
+			byte type = payload.get();
+			int section = payload.getInt();
+			sequence = Math.max(sequence, recordSequence);
+			if (recordSequence > snapshotSequence && section >= 0 && section < sections) {
+				if (type == LOG_CLEAR) {
+					cleared[section] = true;
+					tails.get(section).clear();
+				} else {
+					int score = payload.getInt(), threeBV = payload.getInt();
+					long time = payload.getLong(), seed = payload.getLong();
+					String name = new String(payload.array(), LOG_PAYLOAD_SIZE, length - LOG_PAYLOAD_SIZE, UTF8);
+					insert(tails.get(section), new Record(name, score, threeBV, time, seed));
+				}
+			}
+			logRecords++;
+			position += ENTRY_HEADER_SIZE + length;
+		}
+		logPosition = position;
+		if (exclusive && position < size) {
+			log.truncate(position);
+			log.force(true);
+		}
+	}
+
+
+	private File snapshotFile(long generation) {
+		return new File(directory, SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+	}
+
+	/** Returns the newest snapshot generation on disk, or 0 if there is none. */
+	private long findNewestSnapshot() {
+		long newest = 0;
+		File[] files = directory.listFiles();
+		if (files != null)
+			for (File f : files)
+				newest = Math.max(newest, parseGeneration(f.getName()));
+		return newest;
+	}
+
+	/** Maps the snapshot generation the log header names, if any, and
+	 *  deletes other generations and temporary files that a crash may
+	 *  have left behind. The log must be locked exclusively. */
+	private void openSnapshot() throws IOException {
+		File[] files = directory.listFiles();
+		if (files != null)
+			for (File f : files) {
+				long g = parseGeneration(f.getName());
+				if (f.getName().endsWith(SNAPSHOT_SUFFIX + ".tmp") || g >= 0 && g != generation)
+					f.delete();
+			}
+		if (generation > 0)
+			mapSnapshot(snapshotFile(generation));
+	}
+
+	private static long parseGeneration(String name) {
+		if (!name.startsWith(SNAPSHOT_PREFIX) || !name.endsWith(SNAPSHOT_SUFFIX))
+			return -1;
+		try {
+			return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/** Maps a snapshot file and reads its header and section table. */
+	private void mapSnapshot(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			snapshot = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		} finally {
+			raf.close();
+		}
+		if (snapshot.getInt(0) != SNAPSHOT_MAGIC || snapshot.getInt(4) != SNAPSHOT_FORMAT
+				|| snapshot.getInt(16) != sections)
+			throw new IOException("Not a highscore snapshot: " + file);
+		snapshotSequence = snapshot.getLong(8);
+		sequence = Math.max(sequence, snapshotSequence);
+		names = new String[snapshot.getInt(20)];
+		namesOffset = snapshot.getLong(24);
+		for (int s = 0; s < sections; s++) {
+			recordOffset[s] = snapshot.getLong(HEADER_SIZE + s * SECTION_SIZE);
+			recordCount[s] = snapshot.getInt(HEADER_SIZE + s * SECTION_SIZE + 8);
+		}
+	}
+
+	/** Reads the snapshot record at a position, starting at 0, of a section. */
+	private Record readRecord(int section, int position) {
+		int offset = (int) (recordOffset[section] + (long) position * RECORD_SIZE);
+		return new Record(readName(snapshot.getInt(offset)), snapshot.getInt(offset + 4),
+			snapshot.getInt(offset + 8), snapshot.getLong(offset + 12), snapshot.getLong(offset + 20));
+	}
+
+	/** Reads a name from the dictionary once, and keeps it. */
+	private String readName(int id) {
+		if (names[id] == null) {
+			int offset = (int) (namesOffset + 4L * names.length) + snapshot.getInt((int) namesOffset + 4 * id);
+			byte[] bytes = new byte[snapshot.getShort(offset) & 0xFFFF];
+			ByteBuffer view = snapshot.duplicate();
+			view.position(offset + 2);
+			view.get(bytes);
+			names[id] = new String(bytes, UTF8);
+		}
+		return names[id];
+	}
+
+	private static byte[] encodeName(String name) {
+		byte[] bytes = (name != null ? name : "").getBytes(UTF8);
+		return bytes.length <= MAX_NAME_BYTES ? bytes : Arrays.copyOf(bytes, MAX_NAME_BYTES);
+	}
+
+	/** Writes a complete snapshot of the given sections and forces it to disk. */
+	private void writeSnapshot(File file, List<List<Record>> all) throws IOException {
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		List<byte[]> dictionary = new ArrayList<byte[]>();
+		long records = 0;
+		for (List<Record> section : all) {
+			records += section.size();
+			for (Record r : section)
+				if (!ids.containsKey(r.name)) {
+					ids.put(r.name, dictionary.size());
+					dictionary.add(encodeName(r.name));
+				}
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			long offset = HEADER_SIZE + (long) sections * SECTION_SIZE;
+			long names = offset + records * RECORD_SIZE;
+			buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT).putLong(sequence)
+				.putInt(sections).putInt(dictionary.size()).putLong(names);
+			for (List<Record> section : all) {
+				buffer.putLong(offset).putInt(section.size());
+				offset += (long) section.size() * RECORD_SIZE;
+			}
+			for (List<Record> section : all)
+				for (Record r : section) {
+					buffer = flushIfFull(channel, buffer, RECORD_SIZE);
+					buffer.putInt(ids.get(r.name)).putInt(r.score).putInt(r.threeBV)
+						.putLong(r.time).putLong(r.seed);
+				}
+			int blob = 0;
+			for (byte[] name : dictionary) {
+				buffer = flushIfFull(channel, buffer, 4);
+				buffer.putInt(blob);
+				blob += 2 + name.length;
+			}
+			for (byte[] name : dictionary) {
+				buffer = flushIfFull(channel, buffer, 2 + name.length);
+				buffer.putShort((short) name.length).put(name);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+		if (buffer.remaining() < needed) {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+		return buffer;
+	}
+}
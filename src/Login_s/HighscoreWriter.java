@@ -0,0 +1,308 @@
+package Login_s;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+
+/**
+ *HighscoreWriter class
+ * Write-behind persistence of highscores to a HighscoreStore, so saving
+ * never waits on the disk in the thread that submits a change, such as
+ * the Swing event thread.
+ * Changes wait in a bounded queue; submitting blocks only while the queue
+ * is full. One background thread takes every change waiting at once,
+ * coalesces them - clearing a section drops the records queued for it
+ * before - and appends each section's records with a single write.
+ * Sections, or just their top records, can also be read on that thread,
+ * after every change queued before, so the reader gets them without
+ * waiting on the disk either.
+ * The same thread looks at the store every POLL_INTERVAL milliseconds
+ * for changes other processes made, and publishes their count, so
+ * others learn of them without touching the store or its lock.
+ * The queue is flushed when the JVM shuts down. Failures are reported to
+ * the ErrorListener on the Swing event thread.
+ */
+public class HighscoreWriter {
+
+	/** Number of changes that may wait to be written. */
+	public static final int
+	DEFAULT_CAPACITY = 1024;
+
+	/** Milliseconds between two looks for other processes' changes. */
+	private static final long
+	POLL_INTERVAL = 1000;
+
+	/**
+	 *ErrorListener interface
+	 * Told, on the Swing event thread, when changes could not be written.
+	 */
+	public interface ErrorListener {
+		void writeFailed(IOException e);
+	}
+
+	/**
+	 *ReadListener interface
+	 * Given, on the Swing event thread, the records of a section read in
+	 * the background, and the number of records the section holds.
+	 */
+	public interface ReadListener {
+		void recordsRead(List<HighscoreStore.Record> records, int size);
+	}
+
+	/** One queued change: a record to add, a read of the given number of
+	 *  records, or all if negative, if there is a listener, or a clear if
+	 *  there is neither. */
+	private static final class Change {
+		final int section;
+		final HighscoreStore.Record record;
+		final ReadListener listener;
+		final int count;
+
+		Change(int section, HighscoreStore.Record record, ReadListener listener, int count) {
+			this.section = section;
+			this.record = record;
+			this.listener = listener;
+			this.count = count;
+		}
+	}
+
+
+	private final HighscoreStore store;
+	private final BlockingQueue<Change> queue;
+	private final Thread worker;
+	private final Thread shutdownHook;
+	private ErrorListener errorListener;
+	private long submitted, written;
+	private volatile long externalChanges;
+	private boolean closed;
+
+	/** Creates a writer to the given store with the default capacity. */
+	public HighscoreWriter(HighscoreStore store) {
+		this(store, DEFAULT_CAPACITY);
+	}
+
+	/** Creates a writer to the given store, with room for the given number
+	 *  of waiting changes, and starts its thread. */
+	public HighscoreWriter(HighscoreStore theStore, int capacity) {
+		store = theStore;
+		queue = new ArrayBlockingQueue<Change>(capacity);
+		worker = new Thread(new Runnable() {
+			public void run() {
+				writeChanges();
+			}
+		}, "HighscoreWriter");
+		worker.setDaemon(true);
+		worker.start();
+		shutdownHook = new Thread(new Runnable() {
+			public void run() {
+				close();
+			}
+		}, "HighscoreWriter shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+
+	/** Returns the store written to. */
+	public HighscoreStore getStore() {
+		return store;
+	}
+
+	/** Returns the number of changes other processes have made to the
+	 *  store, as last seen by the writer thread. Reads no file and takes
+	 *  no lock, so it may be called as often as needed. */
+	public long getExternalChanges() {
+		return externalChanges;
+	}
+
+	/** Sets the listener told about changes that could not be written. */
+	public void setErrorListener(ErrorListener listener) {
+		errorListener = listener;
+	}
+
+	/** Queues a record to be appended to a section. */
+	public void add(int section, HighscoreStore.Record record) {
+		submit(new Change(section, record, null, 0));
+	}
+
+	/** Queues the removal of all records of a section. */
+	public void clear(int section) {
+		submit(new Change(section, null, null, 0));
+	}
+
+	/** Queues a read of all records of a section, which are given to the
+	 *  listener once every change queued before is written. */
+	public void read(int section, ReadListener listener) {
+		submit(new Change(section, null, listener, -1));
+	}
+
+	/** Queues a read of the best records of a section, up to the given
+	 *  number, as read(section, listener) does. Only those records are
+	 *  read from the store, however many it holds. */
+	public void read(int section, int count, ReadListener listener) {
+		submit(new Change(section, null, listener, Math.max(count, 0)));
+	}
+
+	/** Waits until every change queued so far is written, and forces
+	 *  the store to disk. */
+	public void flush() {
+		synchronized (this) {
+			long target = submitted;
+			boolean interrupted = false;
+			while (written < target && worker.isAlive())
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+		try {
+			store.sync();
+		} catch (IOException e) {
+			report(e);
+		}
+	}
+
+	/** Writes every queued change, stops the thread and closes the store. */
+	public void close() {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+		}
+		flush();
+		worker.interrupt();
+		try {
+			store.close();
+		} catch (IOException e) {
+			report(e);
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// already shutting down
+		}
+	}
+
+
+	private void submit(Change change) {
+		synchronized (this) {
+			if (closed)
+				throw new IllegalStateException("HighscoreWriter is closed");
+			submitted++;
+		}
+		boolean interrupted = false;
+		while (true)
+			try {
+				queue.put(change);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/** Body of the writer thread: takes all waiting changes at once,
+	 *  and writes them until interrupted. While none come, it looks for
+	 *  other processes' changes. */
+	private void writeChanges() {
+		List<Change> batch = new ArrayList<Change>();
+		while (true) {
+			externalChanges = store.getExternalChanges();
+			try {
+				Change change = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (change == null)
+					continue;
+				batch.add(change);
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch);
+			List<Change> changes = new ArrayList<Change>();
+			for (Change change : batch)
+				if (change.listener == null)
+					changes.add(change);
+				else {
+					writeQuietly(changes);
+					changes.clear();
+					readSection(change.section, change.count, change.listener);
+				}
+			writeQuietly(changes);
+			synchronized (this) {
+				written += batch.size();
+				notifyAll();
+			}
+			batch.clear();
+		}
+	}
+
+	private void writeQuietly(List<Change> changes) {
+		try {
+			write(changes);
+		} catch (IOException e) {
+			report(e);
+		}
+	}
+
+	/** Reads a section, or its first count records if count is not
+	 *  negative, and hands them to the listener on the Swing event thread. */
+	private void readSection(int section, int count, final ReadListener listener) {
+		final List<HighscoreStore.Record> records;
+		final int size;
+		if (count < 0) {
+			records = store.getAll(section);
+			size = records.size();
+		} else {
+			records = store.getFirst(section, count);
+			size = Math.max(store.size(section), records.size());
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				listener.recordsRead(records, size);
+			}
+		});
+	}
+
+	/** Writes a batch of changes, keeping for each section only the last
+	 *  clear and the records added after it. */
+	private void write(List<Change> batch) throws IOException {
+		List<List<HighscoreStore.Record>> added = new ArrayList<List<HighscoreStore.Record>>();
+		List<Boolean> cleared = new ArrayList<Boolean>();
+		for (Change change : batch) {
+			while (added.size() <= change.section) {
+				added.add(new ArrayList<HighscoreStore.Record>());
+				cleared.add(false);
+			}
+			if (change.record != null)
+				added.get(change.section).add(change.record);
+			else {
+				added.get(change.section).clear();
+				cleared.set(change.section, true);
+			}
+		}
+		for (int section = 0; section < added.size(); section++) {
+			if (cleared.get(section))
+				store.clear(section);
+			if (!added.get(section).isEmpty())
+				store.addAll(section, added.get(section));
+		}
+	}
+
+	private void report(final IOException e) {
+		final ErrorListener listener = errorListener;
+		if (listener != null)
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					listener.writeFailed(e);
+				}
+			});
+	}
+}
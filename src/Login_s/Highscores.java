@@ -1,31 +1,94 @@
 package Login_s;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Scanner;
+import java.util.List;
 
 
 public class Highscores {
 	
+	/** Buckets of the leaderboard index: one per 10 milliseconds, up to
+	 *  an hour; slower scores share the last one */
+	private static final int
+	INDEX_BUCKETS		= 3600 * 100,
+	INDEX_BUCKET_WIDTH	= 10;
+	
+	/** First line of the files written by saveToFile(). Files without
+	 *  it are in the old format: a name and a score in seconds per line */
+	private static final String
+	FILE_HEADER = "# Minesweeper highscores, version 2";
+	
+	/** Number of the best highscores read when the list is attached to a
+	 *  store, before the whole list is needed */
+	public static final int
+	TOP_VIEW = 100;
+	
 	/** Number of highscores to keep */
 	public final int MAX_SIZE;
 	
-	/** List of stored highscores */
+	/** List of stored highscores, best first */
 	private final ArrayList<Highscore> highscores;
 	
+	/** Submission counter, breaking ties between equal times */
+	private long sequence;
+	
+	/** Counts of the scores in the list, by score */
+	private final LeaderboardIndex index = new LeaderboardIndex(INDEX_BUCKETS, INDEX_BUCKET_WIDTH);
+	
 	/** Highscore formatting object used when toString() is invoked */
 	private HighscoreFormat highscoreFormat;
 	
+	/** Order of the highscores list */
+	private Ranking ranking = Ranking.TIME;
+	
+	/** Store the list is kept in, if any, the writer that saves
+	 *  changes to it, and the list's section there */
+	private HighscoreStore store;
+	private HighscoreWriter writer;
+	private int section;
+	
+	/** False until the list has been read from the store */
+	private boolean loaded = true;
+	
+	/** Until then, the best highscores and the number of highscores in
+	 *  the store, once they have been read in the background */
+	private final ArrayList<Highscore> top = new ArrayList<Highscore>();
+	private int storedSize;
+	private boolean topRead;
+	
+	/** Changes other processes had made to the store when it was read */
+	private long externalChanges;
+	
+	/** Whether the list is being read again in the background, the number
+	 *  of that read, so a stale one is ignored, and the highscores added
+	 *  since it was asked for, which it does not hold */
+	private boolean reloading;
+	private long reloads;
+	private final ArrayList<Highscore> addedSinceReload = new ArrayList<Highscore>();
+	
+	/** Orders in which the highscores can be ranked. */
+	public enum Ranking {
+		/** Fastest time first. */
+		TIME,
+		/** Most 3BV per second first, so games on easier boards of the
+		 *  same size do not win by default. */
+		RATE
+	}
+	
 	/** Creates a Highscores instance with a given maximum number of
 	 *  highscores to keep. Uses a default HighscoreFormat instance (used
-	 *  to format highscores in the toString() method). */
+	 *  to format highscores in the toString() method).
+	 *  The list is kept sorted, and each new highscore is inserted at the
+	 *  place found by binary search, so large lists stay cheap to update. */
 	Highscores(int size) {
 		MAX_SIZE = size;
-		highscores = new ArrayList<Highscore>(MAX_SIZE);
+		highscores = new ArrayList<Highscore>(Math.min(MAX_SIZE, 1024));
 		highscoreFormat = new HighscoreFormat();
 	}
 	
@@ -33,30 +96,143 @@ public class Highscores {
 	 *  using the given name and score, if isHighscore() returns true.
 	 *  Returns true if a new highscore was added, false otherwise. */
 	public boolean add(String name, int score) {
-		if (isHighscore(score)) {
-			highscores.add(new Highscore(name, score));
-			Collections.sort(highscores);
-			if (highscores.size() > MAX_SIZE)
-				highscores.remove(MAX_SIZE);
-			return true;
-		}
-		else return false;
+		return add(name, score, 0);
+	}
+	
+	/** Adds a new highscore entry to the list, using the given name, score,
+	 *  and 3BV of the board, if isHighscore() returns true. Only a score
+	 *  that is kept is counted in the leaderboard index, so the index
+	 *  counts what the store holds, and is the same after a restart.
+	 *  Returns true if a new highscore was added, false otherwise. */
+	public boolean add(String name, int score, int threeBV) {
+		return add(name, score, threeBV, 0);
+	}
+	
+	/** Adds a new highscore entry to the list, as add(name, score, threeBV)
+	 *  does, also keeping the seed of the board. A new highscore is queued
+	 *  to be appended to the store, if the list is kept in one. */
+	public boolean add(String name, int score, int threeBV, long seed) {
+		refresh();
+		load();
+		Highscore hs = new Highscore(name, score, threeBV, System.currentTimeMillis(), seed, sequence++);
+		int index = insertionPoint(hs);
+		if (index >= MAX_SIZE)
+			return false;
+		highscores.add(index, hs);
+		this.index.add(score);
+		if (highscores.size() > MAX_SIZE)
+			this.index.remove(highscores.remove(MAX_SIZE).SCORE);
+		if (reloading)
+			addedSinceReload.add(hs);
+		if (writer != null)
+			writer.add(section, new HighscoreStore.Record(hs.NAME, hs.SCORE, hs.THREE_BV, hs.TIME, hs.SEED));
+		return true;
 	}
 	
-	/** Removes all highscore entries from the list. */
+	/** Removes all highscore entries from the list, and queues their
+	 *  removal from the store. */
 	public void clear() {
 		highscores.clear();
+		index.clear();
+		loaded = true;
+		cancelReload();
+		if (writer != null)
+			writer.clear(section);
+	}
+	
+	/** Keeps the list in the given section of the store of a writer from
+	 *  now on; changes are saved in the background by the writer.
+	 *  Only the best TOP_VIEW highscores and their number are read, in the
+	 *  background by the writer, so attaching costs the same however many
+	 *  the store holds; size() and get() answer from them. The whole list
+	 *  is read from the store when it is first needed: to rank or add a
+	 *  score, or to get a highscore below the top. Once it is, it is read
+	 *  again in the background whenever another process changes the
+	 *  store; until then, the top is. */
+	public void attach(HighscoreWriter theWriter, int theSection) {
+		writer = theWriter;
+		store = theWriter.getStore();
+		section = theSection;
+		highscores.clear();
+		index.clear();
+		loaded = false;
+		topRead = false;
+		top.clear();
+		readTop();
 	}
 	
 	/** Returns false if the highscores list is already full and the given score
 	 *  is worse (numerically higher) than the worst highscore in the list;
 	 *  otherwise, returns true. */
 	public boolean isHighscore(int score) {
-		return size() < MAX_SIZE || highscores.get(MAX_SIZE-1).SCORE > score;
+		return isHighscore(score, 0);
+	}
+	
+	/** Returns false if the highscores list is already full and the given
+	 *  score and 3BV rank below the worst highscore in the list;
+	 *  otherwise, returns true. */
+	public boolean isHighscore(int score, int threeBV) {
+		return getRank(score, threeBV) <= MAX_SIZE;
+	}
+	
+	/** Returns the rank, starting at 1, that a new highscore with the given
+	 *  score and 3BV would get. It ranks below every equal highscore,
+	 *  since those were submitted earlier. */
+	public int getRank(int score, int threeBV) {
+		refresh();
+		load();
+		return insertionPoint(new Highscore(null, score, threeBV, Long.MAX_VALUE, 0, Long.MAX_VALUE)) + 1;
+	}
+	
+	/** Returns the highscore with the given rank, starting at 1. */
+	public Highscore get(int rank) {
+		refresh();
+		if (!loaded && ranking == Ranking.TIME) {
+			if (topRead && rank <= top.size())
+				return top.get(rank - 1);
+			if (!topRead) {
+				HighscoreStore.Record r = store.get(section, rank);
+				return new Highscore(r.name, r.score, r.threeBV, r.time, r.seed, rank);
+			}
+		}
+		load();
+		return highscores.get(rank - 1);
+	}
+	
+	/** Returns the highscore with the given rank, starting at 1,
+	 *  formatted with the current HighscoreFormat. */
+	public String format(int rank) {
+		return highscoreFormat.format(get(rank));
+	}
+	
+	/** Returns the index of the scores kept in this list, which answers
+	 *  rank and percentile queries by score (time) without walking it. */
+	public LeaderboardIndex getIndex() {
+		refresh();
+		load();
+		return index;
+	}
+	
+	/** Sets the order of the highscores list and sorts it again. */
+	public void setRanking(Ranking theRanking) {
+		if (ranking == theRanking)
+			return;
+		ranking = theRanking;
+		refresh();
+		load();
+		Collections.sort(highscores);
+	}
+	
+	/** Returns the order of the highscores list. */
+	public Ranking getRanking() {
+		return ranking;
 	}
 	
 	/** Returns the current number of highscore entries in the list. */
 	public int size() {
+		refresh();
+		if (!loaded)
+			return topRead ? storedSize : store.size(section);
 		return highscores.size();
 	}
 	
@@ -69,40 +245,45 @@ public class Highscores {
 	
 	/** Loads highscores from a file located in the given filepath.
 	 *  Loads up to MAX_SIZE highscore entries.
-	 *  MAX_SIZE is specified in the constructor of this object. */
+	 *  MAX_SIZE is specified in the constructor of this object.
+	 *  The format is told once for the whole file, by its first line: the
+	 *  files saveToFile() writes start with a header, and the old files,
+	 *  which do not, hold scores in seconds, which become milliseconds. */
 	public boolean loadFromFile(String filepath) {
-		Scanner file = null;
-		try { file = new Scanner(new FileReader(filepath));
+		BufferedReader file = null;
+		try { file = new BufferedReader(new FileReader(filepath));
 		} catch (FileNotFoundException e) {	return false; }
 		
 		highscores.clear();
-		String name = null;
-		int score;
-		while (file.hasNext() && highscores.size() < MAX_SIZE) {
-			String next = file.next();
-			try {
-				score = Integer.parseInt(next);
-				if (name != null) {
-					highscores.add(new Highscore(name, score));
-					name = null;
-				}
-			}
-			catch (Exception e) {
-				if (name == null)
-					name = next;
-				else
-					name = name + next;
+		index.clear();
+		loaded = true;
+		try {
+			String line = file.readLine();
+			boolean old = !FILE_HEADER.equals(line);
+			if (!old)
+				line = file.readLine();
+			for (; line != null && highscores.size() < MAX_SIZE; line = file.readLine()) {
+				Highscore hs = old ? parseOldLine(line) : parseLine(line);
+				if (hs != null)
+					highscores.add(hs);
 			}
+		} catch (IOException e) {
+			return false;
+		} finally {
+			try { file.close(); } catch (IOException e) { }
 		}
-		file.close();
 		Collections.sort(highscores);
 		while (highscores.size() > MAX_SIZE)
 			highscores.remove(MAX_SIZE);
+		for (Highscore hs : highscores)
+			index.add(hs.SCORE);
 		return true;
 	}
 	
 	/** Saves highscores to a file located in the specified filepath.
-	 *  Creates any necessary directories in the filepath that do not exist. */
+	 *  Creates any necessary directories in the filepath that do not exist.
+	 *  After a header line, each highscore is written on a line of its own,
+	 *  as its name, score, 3BV, time and seed, separated by tabs. */
 	public boolean saveToFile(String filepath) {
 		File dir = (new File(filepath)).getParentFile();
 		if (dir != null)
@@ -112,15 +293,23 @@ public class Highscores {
 		catch (Exception e) { return false; }
 		
 		StringBuilder sb = new StringBuilder();
+		sb.append(FILE_HEADER);
+		sb.append(System.getProperty("line.separator"));
 		for (Highscore hs : highscores) {
-			sb.append(hs.NAME);
-			sb.append(' ');
+			sb.append(hs.NAME.replace('\t', ' '));
+			sb.append('\t');
 			sb.append(hs.SCORE);
+			sb.append('\t');
+			sb.append(hs.THREE_BV);
+			sb.append('\t');
+			sb.append(hs.TIME);
+			sb.append('\t');
+			sb.append(hs.SEED);
 			sb.append(System.getProperty("line.separator"));
 		}
 		file.write(sb.toString());
 		file.close();
-		return true;
+		return !file.checkError();
 	}
 	
 	/** Returns a string that contains the list of all highscore entries.
@@ -128,33 +317,188 @@ public class Highscores {
 	 *  HighscoreFormat instance. If no format was set by the user,
 	 *  the default HighscoreFormat instance is used. */
 	public String toString() {
+		return toString(1, size());
+	}
+	
+	/** Returns a string that contains up to the given number of highscore
+	 *  entries, starting at the given rank, formatted as in toString(). */
+	public String toString(int rank, int count) {
 		StringBuilder sb = new StringBuilder();
-		for (Highscore hs : highscores) {
-			sb.append(highscoreFormat.format(hs));
+		for (int i = rank; i < Math.min(rank + count, size() + 1); i++) {
+			sb.append(highscoreFormat.format(get(i)));
 			sb.append(System.getProperty("line.separator"));
 		}
 		return sb.toString();
 	}
 	
+	/** Reads the list, or its top if the whole list has not been needed
+	 *  yet, again in the background if another process has changed the
+	 *  store since it was read. Until then what was read before is used. */
+	private void refresh() {
+		if (reloading || writer == null || writer.getExternalChanges() == externalChanges)
+			return;
+		if (loaded)
+			reload();
+		else
+			readTop();
+	}
+	
+	/** Asks the writer to read the best highscores and the number of
+	 *  highscores in the store, and keeps them when they arrive. */
+	private void readTop() {
+		final long read = ++reloads;
+		externalChanges = writer.getExternalChanges();
+		writer.read(section, TOP_VIEW, new HighscoreWriter.ReadListener() {
+			public void recordsRead(List<HighscoreStore.Record> records, int size) {
+				if (read != reloads)
+					return;
+				top.clear();
+				for (HighscoreStore.Record r : records)
+					top.add(new Highscore(r.name, r.score, r.threeBV, r.time, r.seed, sequence++));
+				storedSize = size;
+				topRead = true;
+			}
+		});
+	}
+	
+	/** Asks the writer to read the whole list, after writing the changes
+	 *  queued before, and puts it in place of this one when it arrives. */
+	private void reload() {
+		reloading = true;
+		final long reload = ++reloads;
+		addedSinceReload.clear();
+		externalChanges = writer.getExternalChanges();
+		writer.read(section, new HighscoreWriter.ReadListener() {
+			public void recordsRead(List<HighscoreStore.Record> records, int size) {
+				if (reload == reloads)
+					publish(records);
+			}
+		});
+	}
+	
+	/** Forgets a read in progress. */
+	private void cancelReload() {
+		reloads++;
+		reloading = false;
+		addedSinceReload.clear();
+	}
+	
+	/** Replaces the list with the records read from the store, and the
+	 *  highscores added since they were asked for. */
+	private void publish(List<HighscoreStore.Record> records) {
+		highscores.clear();
+		index.clear();
+		for (HighscoreStore.Record r : records) {
+			highscores.add(new Highscore(r.name, r.score, r.threeBV, r.time, r.seed, sequence++));
+			index.add(r.score);
+		}
+		if (ranking != Ranking.TIME)
+			Collections.sort(highscores);
+		for (Highscore hs : addedSinceReload) {
+			highscores.add(insertionPoint(hs), hs);
+			index.add(hs.SCORE);
+		}
+		while (highscores.size() > MAX_SIZE)
+			index.remove(highscores.remove(MAX_SIZE).SCORE);
+		loaded = true;
+		cancelReload();
+	}
+	
+	/** Reads the whole list from the store at once, the first time it is
+	 *  needed. Nothing is queued for the list before it is first read, so
+	 *  the store holds all of it. */
+	private void load() {
+		if (loaded)
+			return;
+		cancelReload();
+		loaded = true;
+		top.clear();
+		externalChanges = writer.getExternalChanges();
+		for (HighscoreStore.Record r : store.getAll(section)) {
+			highscores.add(new Highscore(r.name, r.score, r.threeBV, r.time, r.seed, sequence++));
+			index.add(r.score);
+		}
+		if (ranking != Ranking.TIME)
+			Collections.sort(highscores);
+	}
+	
+	/** Returns the index at which a highscore belongs in the sorted list. */
+	private int insertionPoint(Highscore hs) {
+		int index = Collections.binarySearch(highscores, hs);
+		return index < 0 ? -index - 1 : index;
+	}
+	
+	/** Returns the highscore on a line written by saveToFile(), or null
+	 *  if the line does not hold one. */
+	private Highscore parseLine(String line) {
+		String[] fields = line.split("\t", -1);
+		if (fields.length != 5)
+			return null;
+		try {
+			return new Highscore(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+				Long.parseLong(fields[3]), Long.parseLong(fields[4]), sequence++);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	/** Returns the highscore on a line of an old file, a name, which may
+	 *  contain spaces, and a score in seconds, or null if the line does
+	 *  not hold one. */
+	private Highscore parseOldLine(String line) {
+		line = line.trim();
+		int space = line.lastIndexOf(' ');
+		if (space <= 0)
+			return null;
+		try {
+			int seconds = Integer.parseInt(line.substring(space + 1));
+			return new Highscore(line.substring(0, space).trim(), seconds * 1000, 0, 0, 0, sequence++);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
 	/**
 	 *Highscore class
 	 *Represents one highscore entry.
-	 *Stores a name and a score.
-	 *Implements comparable interface for sorting purposes.
+	 *Stores a name, a score, which is the time of the game in
+	 * milliseconds, the 3BV of the board, or 0 if unknown,
+	 * the time it was submitted, or 0 if unknown, and the seed of the
+	 * board, or 0 if unknown.
+	 *Implements comparable interface for sorting purposes,
+	 * in the current ranking of the list. Equal scores are ordered by
+	 * submission, so the earlier highscore keeps the better rank.
 	 */
 	public final class Highscore implements Comparable<Highscore> {
 		
 		public final String NAME;
 		public final int SCORE;
+		public final int THREE_BV;
+		public final long TIME;
+		public final long SEED;
+		private final long sequence;
 		
-		Highscore(String name, int score) {
+		Highscore(String name, int score, int threeBV, long time, long seed, long sequence) {
 			NAME = name;
 			SCORE = score;
+			THREE_BV = threeBV;
+			TIME = time;
+			SEED = seed;
+			this.sequence = sequence;
+		}
+		
+		/** Returns the 3BV per second of this highscore. */
+		public double getRate() {
+			return BoardMetrics.getRate(THREE_BV, SCORE);
 		}
 		
 		@Override
 		public int compareTo(Highscore other) {
-			return SCORE - other.SCORE;
+			int c = ranking == Ranking.RATE ? Double.compare(other.getRate(), getRate())
+				: Integer.compare(SCORE, other.SCORE);
+			if (c == 0)
+				c = Long.compare(TIME, other.TIME);
+			return c != 0 ? c : Long.compare(sequence, other.sequence);
 		}
 	}
 	
@@ -0,0 +1,71 @@
+package Login_s;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.*;
+
+
+/**
+ *HighscoresDialog class
+ * Modal dialog that pages through a highscores list, PAGE_SIZE entries
+ * at a time, so even a list of millions only formats one page.
+ */
+@SuppressWarnings("serial")
+class HighscoresDialog extends JDialog implements ActionListener {
+
+	private static final int
+	PAGE_SIZE = 50;
+
+	private final Highscores highscores;
+	private final JTextArea text = new JTextArea(20, 36);
+	private final JLabel pageLabel = new JLabel();
+	private final JButton previous = new JButton("Prev"), next = new JButton("Next");
+	private int page;
+
+	/** Creates the dialog for the given list, showing its first page. */
+	HighscoresDialog(JFrame owner, String title, Highscores hs) {
+		super(owner, title, true);
+		highscores = hs;
+		text.setEditable(false);
+		text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 16));
+		previous.addActionListener(this);
+		next.addActionListener(this);
+		JPanel buttons = new JPanel();
+		buttons.add(previous);
+		buttons.add(pageLabel);
+		buttons.add(next);
+		getContentPane().add(new JScrollPane(text), BorderLayout.CENTER);
+		getContentPane().add(buttons, BorderLayout.SOUTH);
+		showPage(0);
+		pack();
+		setLocationRelativeTo(owner);
+	}
+
+	/** Returns the number of pages, at least one. */
+	private int getPageCount() {
+		return Math.max(1, (highscores.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+	}
+
+	/** Formats one page of the list into the text area. */
+	private void showPage(int newPage) {
+		page = Math.max(0, Math.min(newPage, getPageCount() - 1));
+		StringBuilder sb = new StringBuilder();
+		int first = page * PAGE_SIZE + 1, last = Math.min(first + PAGE_SIZE - 1, highscores.size());
+		for (int rank = first; rank <= last; rank++)
+			sb.append(String.format("%6d. ", rank)).append(highscores.format(rank)).append('\n');
+		text.setText(highscores.size() > 0 ? sb.toString() : "No highscores yet!");
+		text.setCaretPosition(0);
+		pageLabel.setText("Page " + (page + 1) + " of " + getPageCount()
+			+ " (" + highscores.size() + " highscores)");
+		previous.setEnabled(page > 0);
+		next.setEnabled(page < getPageCount() - 1);
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent event) {
+		showPage(event.getSource() == previous ? page - 1 : page + 1);
+	}
+}
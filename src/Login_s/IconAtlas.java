@@ -0,0 +1,205 @@
+package Login_s;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+
+
+/**
+ *IconAtlas class
+ * Shared cache of the game's images. The source PNGs are decoded once
+ * from the classpath on a background thread; scaled tiles are cached
+ * by size and screen scale factor, least recently used first out.
+ */
+public final class IconAtlas {
+
+	/** Classpath directory of all images. */
+	private static final String
+	IMAGE_DIRECTORY = "/Login_s/images/";
+
+	/** Image names, in the order used by Minefield cell types. */
+	static final String[]
+	CELL_IMAGE_NAMES = {"emptyCell.png",
+				"near1Cell.png",
+				"near2Cell.png",
+				"near3Cell.png",
+				"near4Cell.png",
+				"near5Cell.png",
+				"near6Cell.png",
+				"near7Cell.png",
+				"near8Cell.png",
+				"flaggedCell.png",
+				"brokenFlagCell.png",
+				"markedCell.png",
+				"mineCell.png",
+				"activeMineCell.png"	};
+
+	static final String
+	CLOCK_IMAGE_NAME = "clock.png",
+	MINE_IMAGE_NAME = "mine.png";
+
+	/** Number of scaled tile sets to keep. */
+	private static final int
+	MAX_CACHED_SIZES = 8;
+
+	private static final ExecutorService DECODER = Executors.newSingleThreadExecutor(
+		new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "IconAtlas decoder");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+	private static Future<Map<String, BufferedImage>> sources;
+
+	@SuppressWarnings("serial")
+	private static final Map<String, Icon> TILES =
+		new LinkedHashMap<String, Icon>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Icon> eldest) {
+				return size() > MAX_CACHED_SIZES * (CELL_IMAGE_NAMES.length + 2);
+			}
+		};
+
+	private IconAtlas() {}
+
+
+	/** Starts decoding all source images in the background.
+	 *  Calling this more than once has no effect. */
+	public static synchronized void preload() {
+		if (sources == null)
+			sources = DECODER.submit(new Callable<Map<String, BufferedImage>>() {
+				public Map<String, BufferedImage> call() {
+					Map<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+					for (String name : CELL_IMAGE_NAMES)
+						images.put(name, decode(name));
+					images.put(CLOCK_IMAGE_NAME, decode(CLOCK_IMAGE_NAME));
+					images.put(MINE_IMAGE_NAME, decode(MINE_IMAGE_NAME));
+					return images;
+				}
+			});
+	}
+
+	/** Returns the cell icons for a given cell size, in the order of
+	 *  CELL_IMAGE_NAMES. Entries are null for images that failed to load. */
+	public static Icon[] getCellIcons(int size) {
+		Icon[] icons = new Icon[CELL_IMAGE_NAMES.length];
+		for (int i = 0; i < icons.length; i++)
+			icons[i] = getIcon(CELL_IMAGE_NAMES[i], size);
+		return icons;
+	}
+
+	/** Returns the named image scaled to a square of the given size,
+	 *  or null if it could not be loaded. */
+	public static Icon getIcon(String name, int size) {
+		double scale = getScreenScale();
+		String key = name + '@' + size + 'x' + scale;
+		synchronized (TILES) {
+			if (TILES.containsKey(key))
+				return TILES.get(key);
+		}
+		BufferedImage source = getSource(name);
+		Icon icon = (source == null || size <= 0) ? null
+			: new TileIcon(scale(source, (int) Math.ceil(size * scale)), size);
+		synchronized (TILES) {
+			TILES.put(key, icon);
+		}
+		return icon;
+	}
+
+
+	/** Waits for the background decoding to finish
+	 *  and returns the decoded source image. */
+	private static BufferedImage getSource(String name) {
+		preload();
+		try {
+			return sources.get().get(name);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	private static BufferedImage decode(String name) {
+		InputStream in = IconAtlas.class.getResourceAsStream(IMAGE_DIRECTORY + name);
+		if (in == null)
+			return null;
+		try {
+			return ImageIO.read(in);
+		} catch (IOException e) {
+			return null;
+		} finally {
+			try { in.close(); } catch (IOException e) { }
+		}
+	}
+
+	/** Scales an image to a square of the given pixel size,
+	 *  halving it step by step first to keep downscaled tiles smooth. */
+	private static BufferedImage scale(BufferedImage image, int pixels) {
+		while (image.getWidth() / 2 >= pixels && image.getHeight() / 2 >= pixels)
+			image = draw(image, image.getWidth() / 2, image.getHeight() / 2);
+		return draw(image, pixels, pixels);
+	}
+
+	private static BufferedImage draw(BufferedImage image, int width, int height) {
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+	/** Returns the scale factor of the default screen, 1 when headless. */
+	private static double getScreenScale() {
+		if (GraphicsEnvironment.isHeadless())
+			return 1;
+		AffineTransform t = GraphicsEnvironment.getLocalGraphicsEnvironment()
+			.getDefaultScreenDevice().getDefaultConfiguration().getDefaultTransform();
+		return t.getScaleX();
+	}
+
+
+	/**
+	 *TileIcon class
+	 * Icon of a fixed logical size backed by an image that may have
+	 * more pixels, for sharp tiles on scaled screens.
+	 */
+	private static final class TileIcon implements Icon {
+
+		private final BufferedImage image;
+		private final int size;
+
+		TileIcon(BufferedImage image, int size) {
+			this.image = image;
+			this.size = size;
+		}
+
+		@Override
+		public void paintIcon(Component c, Graphics g, int x, int y) {
+			g.drawImage(image, x, y, size, size, null);
+		}
+
+		@Override
+		public int getIconWidth() {
+			return size;
+		}
+
+		@Override
+		public int getIconHeight() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package Login_s;
+
+import java.util.Arrays;
+
+
+/**
+ *LeaderboardIndex class
+ * Counts of submitted scores by score bucket, in a Fenwick tree, so the
+ * rank and percentile of any score, and the score at any rank, are found
+ * in logarithmic time however many scores were submitted. Lower scores
+ * rank first. Scores past the last bucket share it.
+ */
+public class LeaderboardIndex {
+
+	private final int bucketWidth;
+	private final long[] tree;
+	private long count;
+
+	/** Creates an empty index with the given number of buckets,
+	 *  each covering the given range of scores. */
+	public LeaderboardIndex(int buckets, int bucketWidth) {
+		this.bucketWidth = bucketWidth;
+		tree = new long[buckets + 1];
+	}
+
+
+	/** Counts one more submission of a score. */
+	public void add(int score) {
+		for (int i = bucketOf(score) + 1; i < tree.length; i += i & -i)
+			tree[i]++;
+		count++;
+	}
+
+	/** Forgets one submission of a score. */
+	public void remove(int score) {
+		for (int i = bucketOf(score) + 1; i < tree.length; i += i & -i)
+			tree[i]--;
+		count--;
+	}
+
+	/** Forgets all submissions. */
+	public void clear() {
+		Arrays.fill(tree, 0L);
+		count = 0;
+	}
+
+	/** Returns the number of submissions counted. */
+	public long size() {
+		return count;
+	}
+
+	/** Returns the number of submissions in lower buckets than a score. */
+	public long countBetter(int score) {
+		long better = 0;
+		for (int i = bucketOf(score); i > 0; i -= i & -i)
+			better += tree[i];
+		return better;
+	}
+
+	/** Returns the rank, starting at 1, of the best submission
+	 *  in the bucket of a score. */
+	public long getRank(int score) {
+		return countBetter(score) + 1;
+	}
+
+	/** Returns the percentage of submissions in higher buckets than a
+	 *  score, that is, the share of scores it beats. */
+	public double getPercentile(int score) {
+		if (count == 0)
+			return 100;
+		long notBeaten = 0;
+		for (int i = bucketOf(score) + 1; i > 0; i -= i & -i)
+			notBeaten += tree[i];
+		return 100.0 * (count - notBeaten) / count;
+	}
+
+	/** Returns the lowest score of the bucket that holds the submission
+	 *  with the given rank, starting at 1, or -1 if there is no such rank. */
+	public int getScoreAt(long rank) {
+		if (rank < 1 || rank > count)
+			return -1;
+		int bucket = 0;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1)
+			if (bucket + step < tree.length && tree[bucket + step] < rank) {
+				bucket += step;
+				rank -= tree[bucket];
+			}
+		return bucket * bucketWidth;
+	}
+
+	private int bucketOf(int score) {
+		return Math.min(Math.max(score, 0) / bucketWidth, tree.length - 2);
+	}
+}
@@ -7,13 +7,6 @@ package Login_s;
 
 import javax.swing.JOptionPane;
 import java.awt.event.WindowEvent;
-import java.io.File;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 /**
  *
  * @author akshay
@@ -183,7 +176,7 @@ public class Login extends javax.swing.JFrame {
         String username=jtxtUserName.getText();
   
 
-        if(password.equals(Register.Pword) && (username.equals(Register.Uname)))
+        if(UserRepository.getDefault().authenticate(username,password))
         {
             jtxtUserName.setText(null);
             jPassword.setText(null);
@@ -254,37 +247,17 @@ public class Login extends javax.swing.JFrame {
         //</editor-fold>
         
 
+        /* Decode the game images in the background while logging in */
+        IconAtlas.preload();
+
         /* Create and display the form */
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
                 new Login().setVisible(true);
             }
         });
-        //Reading from the file
-        try{
-        File xmlFile=new File("C:\\XML\\data.xml");
-        
-        DocumentBuilderFactory documentBuilderFactory=DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder=documentBuilderFactory.newDocumentBuilder();
-        
-        Document document=documentBuilder.parse(xmlFile);
-        
-        NodeList list=document.getElementsByTagName("Developer");
-        
-        for(int i=0;i<list.getLength();i++)
-        {
-            Node node=list.item(i);
-            
-            if(node.getNodeType()==Node.ELEMENT_NODE){
-                
-                Element element=(Element)node;
-            }
-            
-        }
-        }
-        catch(Exception e){
-          System.out.println(e);
-        }
+        //Reading the registered players from the file, once
+        UserRepository.getDefault();
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
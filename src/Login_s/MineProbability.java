@@ -0,0 +1,444 @@
+package Login_s;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ *MineProbability class
+ * Exact mine probability of every unknown cell, from the visible state
+ * and the deductions of a MinefieldSolver.
+ * Unknown cells next to a revealed number form the frontier. The frontier
+ * is split into independent components, and each component is enumerated
+ * on a fork-join pool, counting its solutions by number of mines. The
+ * components are then combined with the global mine count, and each
+ * total is weighted by the number of ways to place the remaining mines
+ * in the interior cells, which no number touches.
+ */
+public class MineProbability {
+
+	/** Number of enumeration steps between two checks of the time budget. */
+	private static final int
+	CHECK_INTERVAL = 4096;
+
+	private final MinefieldSolver solver;
+	private final MinefieldModel model;
+	private final double[] probabilities;
+	private final int[] componentOf, localIndex;
+	private final long[] constraints;
+	private volatile boolean cancelled;
+	private volatile long deadline;
+	private long stepLimit;
+	private boolean complete;
+
+	/** Creates a probability calculator over the given solver's model. */
+	public MineProbability(MinefieldSolver solver) {
+		this.solver = solver;
+		model = solver.getModel();
+		probabilities = new double[model.getCellCount()];
+		componentOf = new int[model.getCellCount()];
+		localIndex = new int[model.getCellCount()];
+		constraints = BitPlanes.create(model.getCellCount());
+	}
+
+
+	/** Computes the mine probability of every cell, giving up after the
+	 *  given number of milliseconds or when cancel() is called.
+	 *  Returns true if the probabilities are complete and exact. */
+	public boolean compute(long budgetMillis) {
+		return compute(System.nanoTime() + budgetMillis * 1000000L, Long.MAX_VALUE);
+	}
+
+	/** Computes the mine probability of every cell, giving up once any
+	 *  component takes more than the given number of enumeration steps,
+	 *  or when cancel() is called. Unlike a time budget, whether it
+	 *  finishes does not depend on the machine or its load.
+	 *  Returns true if the probabilities are complete and exact. */
+	public boolean computeWithinSteps(long maxSteps) {
+		return compute(Long.MAX_VALUE, maxSteps);
+	}
+
+	private boolean compute(long deadline, long stepLimit) {
+		cancelled = false;
+		this.deadline = deadline;
+		this.stepLimit = stepLimit;
+		complete = false;
+		solver.solve();
+		Arrays.fill(probabilities, Double.NaN);
+
+		List<Component> components = findComponents();
+		if (!enumerate(components))
+			return false;
+		complete = combine(components);
+		return complete;
+	}
+
+	/** Stops a running computation as soon as possible.
+	 *  May be called from any thread. */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/** Returns true if the last computation finished. */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/** Returns the mine probability of a cell: 0 for known safe cells,
+	 *  1 for known mines, and NaN for revealed cells or when the last
+	 *  computation did not finish. */
+	public double getProbability(int index) {
+		if (!complete || model.isRevealed(index))
+			return Double.NaN;
+		if (solver.isKnownMine(index))
+			return 1;
+		if (solver.isKnownSafe(index))
+			return 0;
+		return probabilities[index];
+	}
+
+	/** Returns the unknown cell with the lowest mine probability,
+	 *  or -1 if there is none or the last computation did not finish. */
+	public int getSafestCell() {
+		int best = -1;
+		for (int i = 0; i < probabilities.length; i++) {
+			double p = getProbability(i);
+			if (p >= 0 && !model.isFlagged(i) && (best < 0 || p < getProbability(best)))
+				best = i;
+		}
+		return best;
+	}
+
+
+	/** Groups the frontier cells into components of cells that share
+	 *  a constraint, directly or through other cells. */
+	private List<Component> findComponents() {
+		Arrays.fill(componentOf, -1);
+		Arrays.fill(constraints, 0L);
+		int[] unknown = new int[8];
+		List<Component> components = new ArrayList<Component>();
+		int[] stack = new int[model.getCellCount()];
+		for (int start = 0; start < componentOf.length; start++) {
+			if (componentOf[start] >= 0 || solver.isSettled(start) || !isFrontier(start))
+				continue;
+			Component component = new Component();
+			componentOf[start] = components.size();
+			int top = 0;
+			stack[top++] = start;
+			while (top > 0) {
+				int cell = stack[--top];
+				localIndex[cell] = component.cellCount;
+				component.cells = add(component.cells, component.cellCount++, cell);
+				int columns = model.getColumns();
+				int row = cell / columns, col = cell % columns;
+				for (int r = row - 1; r <= row + 1; r++)
+					for (int c = col - 1; c <= col + 1; c++) {
+						if (!model.isValidCellLocation(r, c))
+							continue;
+						int number = model.indexOf(r, c);
+						if (BitPlanes.get(constraints, number) || model.getVisibleNumber(number) < 0)
+							continue;
+						BitPlanes.set(constraints, number);
+						component.numbers = add(component.numbers, component.numberCount++, number);
+						int count = solver.getUnknownNeighbors(number, unknown);
+						for (int i = 0; i < count; i++)
+							if (componentOf[unknown[i]] < 0) {
+								componentOf[unknown[i]] = components.size();
+								stack[top++] = unknown[i];
+							}
+					}
+			}
+			component.build(unknown);
+			components.add(component);
+		}
+		return components;
+	}
+
+	/** Returns true if an unknown cell borders a revealed number. */
+	private boolean isFrontier(int index) {
+		int columns = model.getColumns();
+		int row = index / columns, col = index % columns;
+		for (int r = row - 1; r <= row + 1; r++)
+			for (int c = col - 1; c <= col + 1; c++)
+				if (model.isValidCellLocation(r, c) && model.getVisibleNumber(model.indexOf(r, c)) >= 0)
+					return true;
+		return false;
+	}
+
+	/** Enumerates all components in parallel. Returns false if the
+	 *  budget ran out or the computation was cancelled. */
+	private boolean enumerate(final List<Component> components) {
+		if (components.isEmpty())
+			return true;
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(components);
+			}
+		});
+		for (Component component : components)
+			if (!component.finished)
+				return false;
+		return true;
+	}
+
+	/** Combines the component solution counts with the number of ways to
+	 *  place the remaining mines in the interior, and fills in the
+	 *  probabilities. Returns false if the visible state is inconsistent. */
+	private boolean combine(List<Component> components) {
+		int interior = 0, knownMines = 0;
+		for (int i = 0; i < componentOf.length; i++) {
+			if (solver.isKnownMine(i) && !model.isRevealed(i))
+				knownMines++;
+			else if (!solver.isSettled(i) && componentOf[i] < 0)
+				interior++;
+		}
+		int remaining = model.getMineCount() - knownMines;
+		if (remaining < 0)
+			return false;
+
+		double[] logFactorial = new double[interior + 1];
+		for (int i = 1; i <= interior; i++)
+			logFactorial[i] = logFactorial[i - 1] + Math.log(i);
+
+		// Solution counts of all components together, by total frontier mines
+		double[] all = { 1 };
+		for (Component component : components)
+			all = convolve(all, component.solutions);
+
+		// Weight of each total: ways to place the rest in the interior
+		double maxLog = Double.NEGATIVE_INFINITY;
+		double[] logWeight = new double[all.length];
+		for (int t = 0; t < all.length; t++) {
+			int rest = remaining - t;
+			logWeight[t] = rest < 0 || rest > interior || all[t] == 0 ? Double.NEGATIVE_INFINITY
+				: logFactorial[interior] - logFactorial[rest] - logFactorial[interior - rest];
+			maxLog = Math.max(maxLog, logWeight[t]);
+		}
+		if (maxLog == Double.NEGATIVE_INFINITY)
+			return false;
+		double[] weight = new double[all.length];
+		double total = 0, interiorMines = 0;
+		for (int t = 0; t < all.length; t++) {
+			weight[t] = Math.exp(logWeight[t] - maxLog);
+			total += all[t] * weight[t];
+			interiorMines += all[t] * weight[t] * (remaining - t);
+		}
+
+		for (int j = 0; j < components.size(); j++) {
+			Component component = components.get(j);
+			double[] others = { 1 };
+			for (int o = 0; o < components.size(); o++)
+				if (o != j)
+					others = convolve(others, components.get(o).solutions);
+			// Weight of each mine count k within this component
+			double[] byCount = new double[component.solutions.length];
+			for (int k = 0; k < byCount.length; k++)
+				for (int t = 0; t < others.length; t++)
+					if (k + t < weight.length)
+						byCount[k] += others[t] * weight[k + t];
+			for (int i = 0; i < component.cells.length; i++) {
+				double mines = 0;
+				for (int k = component.low; k < component.high; k++)
+					mines += component.cellSolutions[i][k - component.low] * byCount[k];
+				probabilities[component.cells[i]] = mines / total;
+			}
+		}
+		double interiorProbability = interior == 0 ? 0 : interiorMines / total / interior;
+		for (int i = 0; i < componentOf.length; i++)
+			if (!solver.isSettled(i) && componentOf[i] < 0)
+				probabilities[i] = interiorProbability;
+		return true;
+	}
+
+	private static int[] add(int[] array, int size, int value) {
+		if (size == array.length)
+			array = Arrays.copyOf(array, size * 2);
+		array[size] = value;
+		return array;
+	}
+
+	private static double[] convolve(double[] a, double[] b) {
+		double[] result = new double[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++)
+			if (a[i] != 0)
+				for (int j = 0; j < b.length; j++)
+					result[i + j] += a[i] * b[j];
+		return result;
+	}
+
+
+	/**
+	 *Component class
+	 * One independent part of the frontier: its cells, the constraints on
+	 * them, and, once enumerated, the number of solutions by mine count
+	 * and the number of those solutions in which each cell is a mine.
+	 * A component holds no more mines than its constraints ask for, which
+	 * bounds the solution counts. The counts of each cell cover only the
+	 * window of mine counts solutions were found with so far, starting at
+	 * low, which grows as they are found, so even a frontier of many
+	 * thousand cells takes little memory before the budget runs out.
+	 * A cell's counts are added when it stops being a mine, as the
+	 * solutions found since it became one, so a solution costs no pass
+	 * over the cells.
+	 */
+	@SuppressWarnings("serial")
+	private class Component extends RecursiveAction {
+
+		int[] cells = new int[8], numbers = new int[8];
+		int cellCount, numberCount;
+		private int[] remaining;
+		private int[][] constraintCells;
+		private int[][] cellConstraints;
+		private int[] assignedMines, unassigned;
+		private boolean[] mine;
+		double[] solutions;
+		double[][] cellSolutions;
+		private double[][] solutionsBefore;
+		int low, high;
+		boolean finished;
+		private long steps;
+
+		/** Turns the numbers around the component's cells into constraints,
+		 *  indexed both ways by local cell number. */
+		void build(int[] unknown) {
+			cells = Arrays.copyOf(cells, cellCount);
+			remaining = new int[numberCount];
+			constraintCells = new int[numberCount][];
+			int[] perCell = new int[cellCount];
+			for (int k = 0; k < numberCount; k++) {
+				int count = solver.getUnknownNeighbors(numbers[k], unknown);
+				constraintCells[k] = new int[count];
+				for (int i = 0; i < count; i++) {
+					constraintCells[k][i] = localIndex[unknown[i]];
+					perCell[localIndex[unknown[i]]]++;
+				}
+				remaining[k] = solver.getRemainingMines(numbers[k]);
+			}
+			cellConstraints = new int[cellCount][];
+			for (int i = 0; i < cellCount; i++)
+				cellConstraints[i] = new int[perCell[i]];
+			for (int k = 0; k < numberCount; k++)
+				for (int m : constraintCells[k])
+					cellConstraints[m][--perCell[m]] = k;
+		}
+
+		@Override
+		protected void compute() {
+			// Every solution takes more steps than the component has cells
+			if (cellCount >= stepLimit)
+				return;
+			int maxMines = 0;
+			for (int k = 0; k < remaining.length; k++)
+				maxMines = Math.min(maxMines + remaining[k], cellCount);
+			assignedMines = new int[remaining.length];
+			unassigned = new int[remaining.length];
+			for (int k = 0; k < remaining.length; k++)
+				unassigned[k] = constraintCells[k].length;
+			mine = new boolean[cellCount];
+			solutions = new double[maxMines + 1];
+			cellSolutions = new double[cellCount][0];
+			solutionsBefore = new double[cellCount][0];
+			finished = assign();
+		}
+
+		/** Widens the window of mine counts of the cell solution counts to
+		 *  take the given count, at least doubling it. No solution had a
+		 *  count outside the window, so the new part starts at 0. */
+		private void widen(int mines) {
+			int span = Math.max(high - low, 1);
+			int newLow = high == low ? mines : Math.max(Math.min(mines, low - span), 0);
+			int newHigh = high == low ? mines + 1 : Math.min(Math.max(mines + 1, high + span), solutions.length);
+			for (int i = 0; i < cellCount; i++) {
+				cellSolutions[i] = widen(cellSolutions[i], newLow, newHigh);
+				solutionsBefore[i] = widen(solutionsBefore[i], newLow, newHigh);
+			}
+			low = newLow;
+			high = newHigh;
+		}
+
+		private double[] widen(double[] row, int newLow, int newHigh) {
+			double[] wider = new double[newHigh - newLow];
+			if (high > low)
+				System.arraycopy(row, 0, wider, low - newLow, high - low);
+			return wider;
+		}
+
+		/** Tries both values for every cell, depth first, keeping the path
+		 *  in the mine array and the values tried at each cell, rather
+		 *  than on the call stack, so large components do not overflow it.
+		 *  Returns false if the enumeration was stopped. */
+		private boolean assign() {
+			int[] tried = new int[cellCount];
+			int cell = 0, mines = 0;
+			if (!step())
+				return false;
+			while (true) {
+				if (cell == cellCount) {
+					if (mines < low || mines >= high)
+						widen(mines);
+					solutions[mines]++;
+				} else if (tried[cell] < 2) {
+					boolean isMine = tried[cell]++ == 1;
+					if (place(cell, isMine)) {
+						mine[cell] = isMine;
+						if (isMine) {
+							mines++;
+							System.arraycopy(solutions, low, solutionsBefore[cell], 0, high - low);
+						}
+						cell++;
+						if (!step())
+							return false;
+					} else
+						unplace(cell, isMine);
+					continue;
+				} else {
+					tried[cell] = 0;
+					mine[cell] = false;
+				}
+				if (cell == 0)
+					return true;
+				cell--;
+				unplace(cell, mine[cell]);
+				if (mine[cell]) {
+					mines--;
+					for (int k = 0; k < high - low; k++)
+						cellSolutions[cell][k] += solutions[low + k] - solutionsBefore[cell][k];
+				}
+			}
+		}
+
+		/** Counts one enumeration step, and returns false if the budget
+		 *  has run out or the computation was cancelled. */
+		private boolean step() {
+			return ++steps <= stepLimit
+				&& (steps % CHECK_INTERVAL != 0 || !cancelled && System.nanoTime() <= deadline);
+		}
+
+		/** Assigns a value to a cell and returns true if every constraint
+		 *  on it can still be satisfied. */
+		private boolean place(int cell, boolean isMine) {
+			boolean valid = true;
+			for (int k : cellConstraints[cell]) {
+				unassigned[k]--;
+				if (isMine)
+					assignedMines[k]++;
+				if (assignedMines[k] > remaining[k] || assignedMines[k] + unassigned[k] < remaining[k])
+					valid = false;
+			}
+			return valid;
+		}
+
+		private void unplace(int cell, boolean isMine) {
+			for (int k : cellConstraints[cell]) {
+				unassigned[k]++;
+				if (isMine)
+					assignedMines[k]--;
+			}
+		}
+	}
+}
@@ -3,20 +3,17 @@ package Login_s;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
-import java.io.*;
-import javax.imageio.ImageIO;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 
 
 //@SuppressWarnings("serial")
-public class Minefield extends JPanel {
+public class Minefield extends JPanel implements Scrollable {
 	
 	
 	private static final int
 	MAX_WIDTH			= 1000,
 	MAX_HEIGHT			=  600,
+	MIN_CELL_SIZE		=   12,
+	MAX_CELL_SIZE		=   96,
 	BORDER_SIZE			=    0,
 	CELL_SPACING		=    0,
 	CELL_BORDER_SIZE	=    0;
@@ -32,6 +29,7 @@ public class Minefield extends JPanel {
 	CELL_REVEALED_COLOR				= new Color(192,224,255),
 	CELL_REVEALED_MOUSEOVER_COLOR                   = new Color(208,232,255),
 	CELL_REVEALED_SELECTED_COLOR                    = new Color(224,240,255),
+	CELL_START_COLOR				= new Color(128,224,176),
 	CELL_FAILURE_COLOR				= new Color(128,  0,  0);
 	
 	private static final int
@@ -42,28 +40,12 @@ public class Minefield extends JPanel {
 	MINE_CELL		= 12,
 	ACTIVE_MINE_CELL	= 13;
 	
-	private static final String[]
-	CELL_IMAGE_FILEPATHS = {"images/emptyCell.png",
-				"images/near1Cell.png",
-				"images/near2Cell.png",
-				"images/near3Cell.png",
-				"images/near4Cell.png",
-				"images/near5Cell.png",
-				"images/near6Cell.png",
-				"images/near7Cell.png",
-				"images/near8Cell.png",
-				"images/flaggedCell.png",
-				"images/brokenFlagCell.png",
-				"images/markedCell.png",
-				"images/mineCell.png",
-				"images/activeMineCell.png"	};
-	
 	private static final String[]
 	CELL_NAMES = {	 "", "1", "2", "3", "4", "5", "6", "7", "8",
 					"!", "!", "?", "M", "M"	};
 	
-	private static final Icon[]
-	CELL_ICONS = new Icon[CELL_IMAGE_FILEPATHS.length];
+	private static final javax.swing.border.Border
+	CELL_RAISED_BORDER = BorderFactory.createRaisedBevelBorder();
 	
 	
 	/** A simple interface to allow receiving game events.
@@ -80,15 +62,16 @@ public class Minefield extends JPanel {
 	}
 	
 		
+	
+		
 	private MinefieldListener listener; 
-	private Cell[][] cells;
+	private MinefieldModel model;
+	private final ModelHandler modelHandler = new ModelHandler();
 	private int cellSize;
-	private boolean gameStarted;
-	private boolean gameOver;
-	private int flagCount;
-	private int mineCount;
-	private int clearedCellCount;
-	private Cell firstRevealEmptyCell;
+	private Font cellFont;
+	private Icon[] cellIcons = new Icon[IconAtlas.CELL_IMAGE_NAMES.length];
+	private int mouseCell = -1, pressedCell = -1, selectedCell = -1, chordCell = -1;
+	private boolean mouseOver;
 	
 	/** Creates and initializes a Minefield instance.
 	 *  Requires a MinefieldListener to be provided. */
@@ -97,6 +80,11 @@ public class Minefield extends JPanel {
 		listener = theListener;
 		setBorder(BorderFactory.createLineBorder(BORDER_COLOR, BORDER_SIZE));
 		setBackground(CELL_SPACING_COLOR);
+		setOpaque(true);
+		MouseHandler handler = new MouseHandler();
+		addMouseListener(handler);
+		addMouseMotionListener(handler);
+		addMouseWheelListener(handler);
 	}
 	
 	
@@ -106,396 +94,410 @@ public class Minefield extends JPanel {
 	 *  If this is not the first game,
 	 *  then the same dimensions and mine number is used. */
 	public void createNewGame() {
-		if (cells == null)
+		if (model == null)
 			createNewGame(10, 10, 10);
 		else
-			createNewGame(cells.length, cells[0].length, mineCount);
+			createNewGame(model.getRows(), model.getColumns(), model.getMineCount());
 	}
 	
-	/** Creates a new game with given number of rows, colums, and mines.
-	 *  If current minefield has the same parameters, cells are simply reset;
-	 *  otherwise, old cells are removed, new cells are created and
-	 *  sized properly, and minefield JPanel itself is resized. */
+	/** Creates a new game with given number of rows, colums, and mines,
+	 *  using a new random seed. */
 	public void createNewGame(int rows, int columns, int mines) {
-		if (rows <= 0 || columns <= 0 || mines <= 0)
+		createNewGame(rows, columns, mines, MinefieldModel.newSeed());
+	}
+	
+	/** Creates a new game with given number of rows, colums, and mines.
+	 *  Mines are placed according to the given seed, so any board
+	 *  can be regenerated exactly.
+	 *  If current minefield has the same parameters, the model is simply
+	 *  reset; otherwise, a new model is created, cells are sized properly,
+	 *  and minefield JPanel itself is resized. */
+	public void createNewGame(int rows, int columns, int mines, long seed) {
+		if (rows <= 0 || columns <= 0 || mines <= 0 || mines > (long) rows * columns)
 			return;
-		gameStarted = false;
-		gameOver = false;
-		flagCount = 0;
-		clearedCellCount = 0;
-		if (cells != null && cells.length == rows && cells[0].length == columns)
-			resetCells();
-		else {
-			removeAll();
-			setLayout(new GridLayout(rows, columns, CELL_SPACING,CELL_SPACING));
-			setProperSizing(rows, columns);
+		if (model == null || model.getRows() != rows || model.getColumns() != columns)
+			startGame(new MinefieldModel(rows, columns));
+		model.newGame(mines, seed);
+		repaint();
+	}
+	
+	/** Starts a new game on a board that was generated elsewhere,
+	 *  such as by a BoardPool. If the board has different dimensions,
+	 *  cells are sized properly and minefield JPanel itself is resized. */
+	public void startGame(MinefieldModel board) {
+		boolean resized = model == null || model.getRows() != board.getRows()
+			|| model.getColumns() != board.getColumns();
+		if (model != null)
+			model.setModelListener(null);
+		model = board;
+		model.setModelListener(modelHandler);
+		if (resized) {
+			setProperSizing(model.getRows(), model.getColumns());
 			loadProperlySizedImages(cellSize);
-			createCells(rows, columns);
+			revalidate();
 		}
-		addMinesRandomly(mines);
-		mineCount = mines;
+		mouseCell = pressedCell = selectedCell = chordCell = -1;
+		mouseOver = false;
+		repaint();
 	}
 	
 	/** All of the cells are revealed and the game is over. */
 	public void giveUp() {
-		if (!gameOver) {
-			gameOver = true;
-			updateAllCells();
-		}
+		model.giveUp();
 	}
 	
 	/** Returns the curent number of flags in the minefield. */
 	public int getFlagCount() {
-		return flagCount;
+		return model.getFlagCount();
 	}
 	
 	/** Returns the current number of mines in the minefield. */
 	public int getMineCount() {
-		return mineCount;
+		return model.getMineCount();
 	}
 	
-	/** When a flag is removed from a cell, that cell calls this method.
-	 *  The flag count is decremented and the MinefieldListener is notified. */
-	private void flagRemoved() {
-		flagCount--;
-		listener.handleMinefieldEvent(MinefieldEvent.FLAG_CHANGE);
+	/** Returns the headless model this minefield renders from. */
+	public MinefieldModel getModel() {
+		return model;
 	}
 	
-	/** When a flag is added to a cell, that cell calls this method.
-	 *  The flag count is incremented and the MinefieldListener is notified.
-	 *  If the game has not yet started,
-	 *  then the game is stared and the MinefieldListener is notified. */
-	private void flagAdded() {
-		if (!gameStarted && !gameOver) {
-			gameStarted = true;
-			listener.handleMinefieldEvent(MinefieldEvent.FIRST_CLICK);
-		}
-		flagCount++;
-		listener.handleMinefieldEvent(MinefieldEvent.FLAG_CHANGE);
+	/** Paints every cell that intersects the current clip rectangle. */
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		if (model == null)
+			return;
+		Rectangle clip = g.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		int pitch = cellSize + CELL_SPACING;
+		int c0 = Math.max(0, (clip.x - BORDER_SIZE) / pitch);
+		int r0 = Math.max(0, (clip.y - BORDER_SIZE) / pitch);
+		int c1 = Math.min(model.getColumns() - 1, (clip.x + clip.width - BORDER_SIZE) / pitch);
+		int r1 = Math.min(model.getRows() - 1, (clip.y + clip.height - BORDER_SIZE) / pitch);
+		g.setFont(cellFont);
+		for (int r = r0; r <= r1; r++)
+			for (int c = c0; c <= c1; c++)
+				paintCell(g, model.indexOf(r, c), BORDER_SIZE + c * pitch, BORDER_SIZE + r * pitch);
 	}
 	
-	/** When a cell is revealed, that cell calls this method.
-	 *  The cleared cell count is incremented and the game is checked
-	 *  for a winning condition.
-	 *  If the game has not yet started,
-	 *  then the game is stared and the MinefieldListener is notified. */
-	private void cellCleared() {
-		if (!gameStarted && !gameOver) {
-			gameStarted = true;
-			listener.handleMinefieldEvent(MinefieldEvent.FIRST_CLICK);
+	/** Paints a single cell with its top left corner at the given point. */
+	private void paintCell(Graphics g, int index, int x, int y) {
+		g.setColor(getCellColor(index));
+		g.fillRect(x, y, cellSize, cellSize);
+		
+		int cellType = getCellType(index);
+		Icon icon = cellIcons[cellType];
+		if (icon != null)
+			icon.paintIcon(this, g, x + (cellSize - icon.getIconWidth()) / 2,
+				y + (cellSize - icon.getIconHeight()) / 2);
+		else {
+			String text = CELL_NAMES[cellType];
+			if (text.length() > 0) {
+				FontMetrics fm = g.getFontMetrics();
+				g.setColor(CELL_TEXT_COLOR);
+				g.drawString(text, x + (cellSize - fm.stringWidth(text)) / 2,
+					y + (cellSize - fm.getHeight()) / 2 + fm.getAscent());
+			}
+			if (!model.isRevealed(index))
+				CELL_RAISED_BORDER.paintBorder(this, g, x, y, cellSize, cellSize);
+		}
+		if (CELL_BORDER_SIZE > 0) {
+			g.setColor(CELL_BORDER_COLOR);
+			for (int i = 0; i < CELL_BORDER_SIZE; i++)
+				g.drawRect(x + i, y + i, cellSize - 2 * i - 1, cellSize - 2 * i - 1);
 		}
-		clearedCellCount++;
-		checkForWin();
 	}
 	
-	/** When a cell is revealed and contains a mine,
-	 *  that cell calls this method. The game is set to be over.
-	 *  All Cells are revealed, and the MinefieldListener is notified. */
-	private void kaboom() {
-		gameOver = true;
-		updateAllCells();		
-		listener.handleMinefieldEvent(MinefieldEvent.MINE_CLICKED);
+	/** Returns the background color of a cell based on its current state. */
+	private Color getCellColor(int index) {
+		boolean revealed = model.isRevealed(index), mine = model.isMine(index);
+		if (model.isExploded(index) || (revealed && !mine && model.isFlagged(index)))
+			return CELL_FAILURE_COLOR;
+		else if (isSelected(index))
+			if (revealed)	return CELL_REVEALED_SELECTED_COLOR;
+			else		return CELL_SELECTED_COLOR;
+		else if (mouseOver && index == mouseCell)
+			if (revealed)	return CELL_REVEALED_MOUSEOVER_COLOR;
+			else		return CELL_MOUSEOVER_COLOR;
+		else if (index == model.getStartCell() && !model.isGameStarted())
+					return CELL_START_COLOR;
+		else if (!revealed || mine && !model.isFlagged(index))
+					return CELL_COLOR;
+		else			return CELL_REVEALED_COLOR;
 	}
 	
-	/** If the game is not yet over, a check for a winning condition is done.
-	 *  The winning condition is met when the number of uncleared
-	 *  equals the total number of mines.
-	 *  If the winning condition is met, the game is set to be over,
-	 *  all cells are revealed, and the MinefieldListener is notified. */
-	private void checkForWin() {
-		if (!gameOver && cells.length * cells[0].length - clearedCellCount == mineCount) {
-			gameOver = true;
-			updateAllCells();
-			listener.handleMinefieldEvent(MinefieldEvent.MINEFIELD_CLEARED);
-		}
+	/** Returns the icon index of a cell based on its current state. */
+	private int getCellType(int index) {
+		if (model.isRevealed(index))
+			if (model.isExploded(index))		return ACTIVE_MINE_CELL;
+			else if (model.isMine(index))		return MINE_CELL;
+			else if (model.isFlagged(index))	return BROKEN_FLAG_CELL;
+			else					return model.getNearbyMines(index);
+		else if (model.isFlagged(index))	return FLAGGED_CELL;
+		else if (model.isMarked(index))		return MARKED_CELL;
+		else					return EMPTY_CELL;
 	}
 	
-	/** If the game is over, each cell is revealed; otherwise,
-	 *  each cell's color and icon is updated based on its current state. */
-	private void updateAllCells() {
-		for (int r = 0; r < cells.length; r++)
-			for (int c = 0; c < cells[0].length; c++) {
-				if (gameOver)
-					cells[r][c].gameOverReveal();
-				else {
-					cells[r][c].updateColor();
-					cells[r][c].updateIcon();
-				}
-			}
+	/** A cell is selected while it is pressed, or while it is an unrevealed
+	 *  neighbor of a revealed cell that is pressed with the right button. */
+	private boolean isSelected(int index) {
+		if (index == selectedCell)
+			return true;
+		if (chordCell < 0 || model.isRevealed(index))
+			return false;
+		int columns = model.getColumns();
+		int dr = index / columns - chordCell / columns;
+		int dc = index % columns - chordCell % columns;
+		return dr >= -1 && dr <= 1 && dc >= -1 && dc <= 1 && index != chordCell;
+	}
+	
+	/** Returns the index of the cell under a given point,
+	 *  or -1 if the point is on a border or spacing. */
+	private int getCellAt(int x, int y) {
+		if (model == null)
+			return -1;
+		int pitch = cellSize + CELL_SPACING;
+		x -= BORDER_SIZE;
+		y -= BORDER_SIZE;
+		if (x < 0 || y < 0 || x % pitch >= cellSize || y % pitch >= cellSize)
+			return -1;
+		int r = y / pitch, c = x / pitch;
+		return model.isValidCellLocation(r, c) ? model.indexOf(r, c) : -1;
+	}
+	
+	/** Repaints only the rectangle covered by a given cell. */
+	private void repaintCell(int index) {
+		if (index < 0)
+			return;
+		int pitch = cellSize + CELL_SPACING;
+		int columns = model.getColumns();
+		repaint(BORDER_SIZE + index % columns * pitch, BORDER_SIZE + index / columns * pitch,
+			cellSize, cellSize);
 	}
 	
-	/** Calculates the preferred size of the minefield's JPanel
-	 *  and the size of each cell, according to the total number of rows
-	 *  and columns, and according to the defined MAX_WIDTH and MAX_HEIGHT
-	 *  of the JPanel. */
+	/** Repaints the 3x3 block of cells centered on a given cell. */
+	private void repaintNeighborhood(int index) {
+		if (index < 0)
+			return;
+		int pitch = cellSize + CELL_SPACING;
+		int columns = model.getColumns();
+		int x = BORDER_SIZE + (index % columns - 1) * pitch;
+		int y = BORDER_SIZE + (index / columns - 1) * pitch;
+		repaint(x, y, 3 * pitch, 3 * pitch);
+	}
+	
+	/** Calculates the size of each cell, according to the total number
+	 *  of rows and columns, and according to the defined MAX_WIDTH and
+	 *  MAX_HEIGHT of the visible area. Cells never get smaller than
+	 *  MIN_CELL_SIZE; larger boards are scrolled instead. */
 	private void setProperSizing(int rows, int columns) {
 		int nonCellWidth = (2 * BORDER_SIZE) + (columns - 1) * CELL_SPACING;
 		int nonCellHeight = (2 * BORDER_SIZE) + (rows - 1) * CELL_SPACING;
 		int cellSizeA = (MAX_WIDTH - nonCellWidth) / columns;
 		int cellSizeB = (MAX_HEIGHT - nonCellHeight) / rows;
-		cellSize = Math.min(cellSizeA, cellSizeB);
-		int width = cellSize * columns + nonCellWidth;
-		int height = cellSize * rows + nonCellHeight;
+		setCellSize(Math.max(MIN_CELL_SIZE, Math.min(cellSizeA, cellSizeB)));
+	}
+	
+	/** Sets the size of each cell and resizes the minefield's JPanel
+	 *  to fit all cells of that size. */
+	private void setCellSize(int size) {
+		cellSize = size;
+		cellFont = new Font(getFont().getName(), Font.BOLD, cellSize);
+		int columns = model.getColumns(), rows = model.getRows();
+		int width = cellSize * columns + (2 * BORDER_SIZE) + (columns - 1) * CELL_SPACING;
+		int height = cellSize * rows + (2 * BORDER_SIZE) + (rows - 1) * CELL_SPACING;
 		setPreferredSize(new Dimension(width, height));
 	}
 	
-	/** Loads all icons used by cells
-	 *  and resizes the icons to the given cell size. */
-	private void loadProperlySizedImages(int cellSize) {
-		for (int i = 0; i < CELL_ICONS.length; i++)
-			try {
-				CELL_ICONS[i] = null;
-				CELL_ICONS[i] = new ImageIcon(
-					ImageIO.read(new File(CELL_IMAGE_FILEPATHS[i]))
-					.getScaledInstance(cellSize, cellSize, Image.SCALE_SMOOTH));
-			} catch (IOException e) { }
+	/** Zooms in or out by a number of steps, keeping the cell
+	 *  under the given point at the same place in the viewport. */
+	private void zoom(int steps, Point anchor) {
+		int size = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize - 2 * steps));
+		if (size == cellSize)
+			return;
+		Rectangle view = getVisibleRect();
+		double ratio = (double) (size + CELL_SPACING) / (cellSize + CELL_SPACING);
+		setCellSize(size);
+		loadProperlySizedImages(cellSize);
+		setSize(getPreferredSize());
+		if (getParent() instanceof JViewport) {
+			Dimension extent = ((JViewport) getParent()).getExtentSize();
+			int x = (int) Math.round(anchor.x * ratio) - (anchor.x - view.x);
+			int y = (int) Math.round(anchor.y * ratio) - (anchor.y - view.y);
+			x = Math.max(0, Math.min(x, getWidth() - extent.width));
+			y = Math.max(0, Math.min(y, getHeight() - extent.height));
+			((JViewport) getParent()).setViewPosition(new Point(x, y));
+		}
+		revalidate();
+		repaint();
 	}
 	
-	/** Populates the minefield's JPanel with new cells
-	 * based on a given number of rows and columns. */
-	private void createCells(int rows, int columns) {
-		cells = new Cell[rows][columns];
-		for (int r = 0; r < rows; r++)
-			for (int c = 0; c < columns; c++) {
-				cells[r][c] = new Cell(r, c);
-				add(cells[r][c]);
-			}
+	/** The viewport shows at most MAX_WIDTH x MAX_HEIGHT pixels of the board. */
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		Dimension size = getPreferredSize();
+		return new Dimension(Math.min(size.width, MAX_WIDTH), Math.min(size.height, MAX_HEIGHT));
 	}
 	
-	/** Adds a given number of mines to current cells randomly. */
-	private void addMinesRandomly(int mines) {
-		int rows = cells.length;
-		int cols = cells[0].length;
-		Integer[] index = new Integer[rows * cols];
-		for (int i = 0; i < index.length; i++)
-			index[i] = i;
-		Collections.shuffle(Arrays.asList(index));
-		for (int m = 0; m < mines; m++)
-			cells[index[m] / cols][index[m] % cols].mine = true;
-		firstRevealEmptyCell = cells[index[mines] / cols][index[mines] % cols];
+	/** Scrolling by one unit moves the view by one cell. */
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+		return cellSize + CELL_SPACING;
 	}
 	
-	/** Iterates through all of the current cells
-	 * and resets them to a new game state. */
-	private void resetCells() {
-		for (int r = 0; r < cells.length; r++)
-			for (int c = 0; c < cells[0].length; c++)
-				cells[r][c].reset();
-	}	
-	
-	/** Given a row and a column, returns a list of neighboring cells. */
-	private ArrayList<Cell> getNeighbors(int row, int col) {
-		ArrayList<Cell> neighbors = new ArrayList<Cell>(8);
-		for (int r = row - 1; r <= row + 1; r++)
-			for (int c = col - 1; c <= col + 1; c++)
-				if (isValidCellLocation(r, c) && (r != row || c != col))
-					neighbors.add(cells[r][c]);
-		return neighbors;
+	/** Scrolling by one block moves the view by all but one visible cell. */
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+		int extent = orientation == SwingConstants.HORIZONTAL ? visible.width : visible.height;
+		return Math.max(cellSize + CELL_SPACING, extent - cellSize - CELL_SPACING);
 	}
 	
-	/** Returns true if a given row and column is a valid location
-	 *  of the minefield, false otherwise. */
-	private boolean isValidCellLocation(int r, int c) {
-		return (r >= 0 && r < cells.length && c >= 0 && c < cells[0].length);
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return false;
 	}
-		
 	
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return false;
+	}
 	
-	private class Cell extends JLabel implements MouseListener {
-		
+	/** Fetches all icons used by cells, sized to the given cell size,
+	 *  from the shared IconAtlas. */
+	private void loadProperlySizedImages(int cellSize) {
+		cellIcons = IconAtlas.getCellIcons(cellSize);
+	}
 	
-		private final int R, C;
-		private boolean mouseOver, selected, revealed, flagged, marked;
-		private boolean mine, exploded;
-		private boolean neighborsSelected;
-		private int nearbyMines;
-		
-		
-		Cell(int r, int c) {
-			super();
-			R = r;
-			C = c;
-			addMouseListener(this);
-			setHorizontalAlignment(JLabel.CENTER);
-			setOpaque(true);
-			setForeground(CELL_TEXT_COLOR);
-			setFont(new Font(getFont().getName(), Font.BOLD, cellSize));
-			reset();
-		}
-		
+	
+	/**
+	 *ModelHandler class
+	 * Repaints the bounding rectangle of each batch of cells
+	 * reported by the model and forwards
+	 * model events to the MinefieldListener.
+	 */
+	private class ModelHandler implements MinefieldModel.ModelListener {
 		
-		private void reset() {
-			setBorder(BorderFactory.createLineBorder(
-				CELL_BORDER_COLOR, CELL_BORDER_SIZE));
-			mouseOver = selected = revealed = flagged = marked = false;
-			mine = exploded = false;
-			neighborsSelected = false;
-			nearbyMines = -1;
-			updateColor();
-			updateIcon();
-		}
-		// Clear all possible GameSquare objects up to the borders or until the GameSquare has 1 or more mines
-		private void reveal() {
-			if (revealed || flagged || marked)
-				return;
-			revealed = true;
-			if  (!gameStarted && mine) {
-				mine = false;
-				firstRevealEmptyCell.mine = true;
-			}
-			if (mine) {
-				exploded = true;
-				kaboom();
-			} else {
-				cellCleared();
-				if (getNearbyMines() == 0) {
-					mouseOver = false;
-					revealNeighbors();
-				}
-				updateColor();
-				updateIcon();
+		@Override
+		public void cellsChanged(int[] changed, int count) {
+			int columns = model.getColumns();
+			int r0 = Integer.MAX_VALUE, c0 = Integer.MAX_VALUE, r1 = -1, c1 = -1;
+			for (int i = 0; i < count; i++) {
+				int r = changed[i] / columns, c = changed[i] % columns;
+				if (r < r0) r0 = r;
+				if (r > r1) r1 = r;
+				if (c < c0) c0 = c;
+				if (c > c1) c1 = c;
 			}
+			if (mouseCell >= 0 && model.isRevealed(mouseCell)
+					&& !model.isMine(mouseCell) && model.getNearbyMines(mouseCell) == 0)
+				mouseOver = false;
+			int pitch = cellSize + CELL_SPACING;
+			repaint(BORDER_SIZE + c0 * pitch, BORDER_SIZE + r0 * pitch,
+				(c1 - c0) * pitch + cellSize, (r1 - r0) * pitch + cellSize);
 		}
 		
-		private int getNearbyMines() {
-			if (nearbyMines < 0) {
-				nearbyMines = 0;
-				for (Cell neighbor : getNeighbors(R, C))
-					if (neighbor.mine)
-						nearbyMines++;
+		@Override
+		public void handleModelEvent(MinefieldModel.ModelEvent event) {
+			switch (event) {
+				case GAME_STARTED:	listener.handleMinefieldEvent(MinefieldEvent.FIRST_CLICK); break;
+				case FLAGS_CHANGED:	listener.handleMinefieldEvent(MinefieldEvent.FLAG_CHANGE); break;
+				case MINE_EXPLODED:	listener.handleMinefieldEvent(MinefieldEvent.MINE_CLICKED); break;
+				case FIELD_CLEARED:	listener.handleMinefieldEvent(MinefieldEvent.MINEFIELD_CLEARED); break;
 			}
-			return nearbyMines;
 		}
+	}
+	
+	
+	/**
+	 *MouseHandler class
+	 * Maps mouse coordinates to cells and applies the game play clicks.
+	 * Control + mouse wheel zooms; the plain wheel scrolls the viewport.
+	 */
+	private class MouseHandler extends MouseAdapter {
 		
-		private void revealNeighbors() {
-			for (Cell neighbor : getNeighbors(R, C))
-				neighbor.reveal();
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (e.isControlDown() && model != null)
+				zoom(e.getWheelRotation(), e.getPoint());
+			else if (getParent() != null)
+				getParent().dispatchEvent(SwingUtilities.convertMouseEvent(Minefield.this, e, getParent()));
 		}
 		
-		private void forceRevealNeighbors() {
-			int flaggedNeighbors = 0;
-			ArrayList<Cell> neighbors = getNeighbors(R, C);
-			for (Cell neighbor : neighbors) {
-				if (!neighbor.revealed) {
-					neighbor.selected = false;
-					neighbor.updateColor();
-				}
-				if ((!neighbor.revealed && neighbor.flagged) || (neighbor.revealed && neighbor.mine))
-					flaggedNeighbors++;
-			}
-			if (getNearbyMines() == flaggedNeighbors) {
-				for (Cell neighbor : neighbors) {
-					neighbor.marked = false;
-					if (!neighbor.revealed && neighbor.mine && !neighbor.flagged) {
-						neighbor.exploded = true;
-						kaboom();
-					}
+		@Override
+		public void mousePressed(MouseEvent e) {
+			pressedCell = getCellAt(e.getX(), e.getY());
+			int cell = pressedCell;
+			if (cell < 0 || model.isGameOver() || !(mouseOver && cell == mouseCell || !model.isGameStarted()))
+				return;
+			selectedCell = cell;
+			repaintCell(cell);
+			if (e.getButton() != MouseEvent.BUTTON1)
+				if (!model.isRevealed(cell))
+					model.toggleFlag(cell);
+				else {
+					chordCell = cell;
+					repaintNeighborhood(cell);
 				}
-				for (Cell neighbor : neighbors)
-					neighbor.reveal();
-			}
 		}
 		
-		private void gameOverReveal() {
-			if (!revealed && (mine || flagged)) {
-				marked = false;
-				revealed = true;
-				if (mine && !flagged)
-					flagAdded();
-				cellCleared();
-			}
-			updateColor();
-			updateIcon();
-		}
-
-		private void updateColor() {
-			if (exploded || (revealed && !mine && flagged))
-				setBackground(CELL_FAILURE_COLOR);
-			else if (selected)
-				if (revealed)	setBackground(CELL_REVEALED_SELECTED_COLOR);
-				else		setBackground(CELL_SELECTED_COLOR);
-			else if (mouseOver)
-				if (revealed)	setBackground(CELL_REVEALED_MOUSEOVER_COLOR);
-				else		setBackground(CELL_MOUSEOVER_COLOR);
-			else if (!revealed || mine && !flagged)
-						setBackground(CELL_COLOR);
-			else			setBackground(CELL_REVEALED_COLOR);
-		}
-		
-		private void updateIcon() {
-			int cellType;
-			if (revealed)
-				if (exploded)		cellType = ACTIVE_MINE_CELL;
-				else if (mine)		cellType = MINE_CELL;
-				else if (flagged)	cellType = BROKEN_FLAG_CELL;
-				else if (getNearbyMines() > 0)	cellType = nearbyMines;
-				else							cellType = EMPTY_CELL;
-			else if (flagged)	cellType = FLAGGED_CELL;
-			else if (marked)	cellType = MARKED_CELL;
-			else				cellType = EMPTY_CELL;
-			
-			boolean textMode = CELL_ICONS[cellType] == null;
-			setText(textMode ? CELL_NAMES[cellType] : null);
-			setIcon(textMode ? null : CELL_ICONS[cellType]);
-			setBorder(textMode && !revealed ? BorderFactory.createRaisedBevelBorder() : null);
-		}
-				
-		
-		@Override
-		public void mouseClicked(MouseEvent e) {}
 		@Override
-		public void mousePressed(MouseEvent e) {
-			if (!gameOver && (mouseOver || !gameStarted)) {
-				selected = true;
-				updateColor();
-				if (e.getButton() != MouseEvent.BUTTON1)
-					if (!revealed) {
-						if (flagged) flagRemoved();
-						flagged = !flagged && !marked;
-						marked = !flagged && !marked;
-						if (flagged) flagAdded();
-						updateIcon();
-					}
-					else {
-						neighborsSelected = true;
-						for (Cell neighbor : getNeighbors(R, C))
-							if (!neighbor.revealed) {
-								neighbor.selected = true;
-								neighbor.updateColor();
-							}
-					}
+		public void mouseReleased(MouseEvent e) {
+			int cell = pressedCell;
+			pressedCell = -1;
+			if (cell < 0 || model.isGameOver() || !(mouseOver && cell == mouseCell || !model.isGameStarted()))
+				return;
+			selectedCell = -1;
+			repaintCell(cell);
+			if (e.getButton() == MouseEvent.BUTTON1)
+				model.reveal(cell);
+			else if (model.isRevealed(cell)) {
+				chordCell = -1;
+				repaintNeighborhood(cell);
+				model.forceRevealNeighbors(cell);
 			}
 		}
+		
 		@Override
-		public void mouseReleased(MouseEvent e) {
-			if (!gameOver && (mouseOver || !gameStarted)) {
-				selected = false;
-				updateColor();
-				if (e.getButton() == MouseEvent.BUTTON1)
-					reveal();
-				else if (revealed)
-					forceRevealNeighbors();
+		public void mouseMoved(MouseEvent e) {
+			int cell = getCellAt(e.getX(), e.getY());
+			if (cell != mouseCell) {
+				exitCell();
+				enterCell(cell);
 			}
 		}
+		
 		@Override
-		public void mouseEntered(MouseEvent e) {
-			if (!gameOver && (!revealed || (!mine && getNearbyMines() > 0)))
-			mouseOver = true;
-			updateColor();
+		public void mouseDragged(MouseEvent e) {
+			mouseMoved(e);
 		}
+		
 		@Override
 		public void mouseExited(MouseEvent e) {
+			exitCell();
+		}
+		
+		private void enterCell(int cell) {
+			mouseCell = cell;
+			if (cell < 0)
+				return;
+			mouseOver = !model.isGameOver() && (!model.isRevealed(cell)
+				|| (!model.isMine(cell) && model.getNearbyMines(cell) > 0));
+			repaintCell(cell);
+		}
+		
+		private void exitCell() {
+			if (mouseCell < 0)
+				return;
 			mouseOver = false;
-			selected = false;
-			if (neighborsSelected) {
-				neighborsSelected = false;
-				for (Cell neighbor : getNeighbors(R, C))
-					if (!neighbor.revealed) {
-						neighbor.selected = false;
-						neighbor.updateColor();
-					}
+			if (selectedCell == mouseCell)
+				selectedCell = -1;
+			if (chordCell == mouseCell) {
+				chordCell = -1;
+				repaintNeighborhood(mouseCell);
 			}
-			updateColor();
+			repaintCell(mouseCell);
+			mouseCell = -1;
 		}
 	}
 }
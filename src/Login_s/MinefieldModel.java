@@ -0,0 +1,601 @@
+package Login_s;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ *MinefieldModel class
+ * Headless game engine behind the Minefield panel.
+ * All cell state is packed into primitive arrays indexed by
+ * row * columns + column, so the rules can run without any display.
+ * Mines, revealed, flagged and marked cells are kept as bit planes,
+ * so whole-board checks work on 64 cells at a time.
+ */
+public class MinefieldModel {
+
+	/** Source of seeds for games that are not given one explicitly. */
+	private static final SplittableRandom SEEDS = new SplittableRandom();
+
+
+	/** Receives notifications about visible changes in the model.
+	 *  Changed cells are reported by index, once per player action,
+	 *  in the first count entries of a reused array. */
+	public interface ModelListener {
+		void cellsChanged(int[] cells, int count);
+		void handleModelEvent(ModelEvent event);
+	}
+
+
+	/** Enumeration representing a game event of the model. */
+	public enum ModelEvent {
+		GAME_STARTED, FLAGS_CHANGED, MINE_EXPLODED, FIELD_CLEARED;
+	}
+
+
+	private final int rows, columns, cells;
+	private final long[] mines, revealed, flagged, marked;
+	private final byte[] nearbyMines;
+	private final int[] changed;
+	private int changedCount;
+	private ModelListener listener;
+	private boolean gameStarted;
+	private boolean gameOver;
+	private int flagCount;
+	private int mineCount;
+	private int explodedCell;
+	private int firstRevealEmptyCell;
+	private int startCell;
+	private long seed;
+	private Openings openings;
+	private BoardMetrics metrics;
+
+	/** Creates an empty model with the given number of rows and columns. */
+	public MinefieldModel(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		cells = rows * columns;
+		mines = BitPlanes.create(cells);
+		revealed = BitPlanes.create(cells);
+		flagged = BitPlanes.create(cells);
+		marked = BitPlanes.create(cells);
+		nearbyMines = new byte[cells];
+		changed = new int[cells + 9];
+		reset();
+	}
+
+
+	/** Sets the listener notified about cell changes and game events. */
+	public void setModelListener(ModelListener theListener) {
+		listener = theListener;
+	}
+
+	/** Clears all cells and places the given number of mines randomly. */
+	public void newGame(int mines) {
+		newGame(mines, newSeed());
+	}
+
+	/** Clears all cells and places the given number of mines at locations
+	 *  derived from the given seed. The same seed, size and number of mines
+	 *  always produce the same board. */
+	public void newGame(int mines, long seed) {
+		if (mines < 0 || mines > cells)
+			throw new IllegalArgumentException("Invalid number of mines: " + mines);
+		reset();
+		this.seed = seed;
+		addMinesRandomly(mines, new SplittableRandom(seed));
+		mineCount = mines;
+		layoutChanged();
+		getMetrics();
+	}
+
+	/** Returns a new random seed for a game. */
+	public static long newSeed() {
+		synchronized (SEEDS) {
+			return SEEDS.nextLong();
+		}
+	}
+
+	/** Returns the seed the current board was generated from, or 0 if
+	 *  mines were moved after it was generated. */
+	public long getSeed() {
+		return seed;
+	}
+
+	/** Returns the difficulty metrics of the board. They are computed when
+	 *  the board is generated, and again if the first click moves a mine. */
+	public BoardMetrics getMetrics() {
+		if (metrics == null)
+			metrics = BoardMetrics.compute(getOpenings());
+		return metrics;
+	}
+
+	/** Returns the labelled openings of the board, labelling them again
+	 *  if the mines were moved since. */
+	Openings getOpenings() {
+		if (openings == null)
+			openings = new Openings(this);
+		return openings;
+	}
+
+	/** Returns the cell the board is meant to be started from, such as the
+	 *  cell a NoGuessGenerator verified it from, or -1 if there is none. */
+	public int getStartCell() {
+		return startCell;
+	}
+
+	/** Sets the cell the board is meant to be started from. */
+	void setStartCell(int index) {
+		startCell = index;
+	}
+
+	/** Returns the number of rows of the minefield. */
+	public int getRows() {
+		return rows;
+	}
+
+	/** Returns the number of columns of the minefield. */
+	public int getColumns() {
+		return columns;
+	}
+
+	/** Returns the total number of cells of the minefield. */
+	public int getCellCount() {
+		return cells;
+	}
+
+	/** Returns the curent number of flags in the minefield. */
+	public int getFlagCount() {
+		return flagCount;
+	}
+
+	/** Returns the current number of mines in the minefield. */
+	public int getMineCount() {
+		return mineCount;
+	}
+
+	/** Returns the number of revealed cells. Once the game is over,
+	 *  this includes the revealed mines and flags. */
+	public int getClearedCellCount() {
+		return BitPlanes.count(revealed);
+	}
+
+	/** Returns the number of flags that are placed on mines. */
+	public int getCorrectFlagCount() {
+		return BitPlanes.countAnd(flagged, mines);
+	}
+
+	/** Returns the number of flags that are placed on safe cells. */
+	public int getWrongFlagCount() {
+		return BitPlanes.countAndNot(flagged, mines);
+	}
+
+	/** Returns true if every safe cell is revealed. */
+	public boolean isCleared() {
+		return BitPlanes.countAndNot(revealed, mines) == cells - mineCount;
+	}
+
+	/** Returns true if a mine exploded. */
+	public boolean isLost() {
+		return explodedCell >= 0;
+	}
+
+	/** Returns true once the first cell was revealed or flagged. */
+	public boolean isGameStarted() {
+		return gameStarted;
+	}
+
+	/** Returns true once a mine exploded, the field was cleared,
+	 *  or the player gave up. */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	/** Returns the index of the cell at a given row and column. */
+	public int indexOf(int row, int column) {
+		return row * columns + column;
+	}
+
+	/** Returns true if a given row and column is a valid location
+	 *  of the minefield, false otherwise. */
+	public boolean isValidCellLocation(int r, int c) {
+		return (r >= 0 && r < rows && c >= 0 && c < columns);
+	}
+
+	public boolean isMine(int index)		{ return BitPlanes.get(mines, index); }
+	public boolean isRevealed(int index)	{ return BitPlanes.get(revealed, index); }
+	public boolean isFlagged(int index)		{ return BitPlanes.get(flagged, index); }
+	public boolean isMarked(int index)		{ return BitPlanes.get(marked, index); }
+	public boolean isExploded(int index)	{ return index == explodedCell; }
+
+	/** Returns the number of mines around the cell with the given index.
+	 *  Counts are computed when mines are placed, so this is a lookup. */
+	public int getNearbyMines(int index) {
+		return nearbyMines[index];
+	}
+
+	/** Returns what a player can see of a cell: its number of nearby mines
+	 *  if it is a revealed safe cell, otherwise -1. */
+	public int getVisibleNumber(int index) {
+		return isRevealed(index) && !isMine(index) ? nearbyMines[index] : -1;
+	}
+
+	/** Returns 64 cells of the revealed plane, starting at cell 64 * word. */
+	long getRevealedWord(int word) {
+		return revealed[word];
+	}
+
+	/** Returns 64 cells of the flagged plane, starting at cell 64 * word. */
+	long getFlaggedWord(int word) {
+		return flagged[word];
+	}
+
+	/** Cycles the cell with the given index through
+	 *  flagged, marked and blank, as a right click does. */
+	public void toggleFlag(int index) {
+		if (gameOver || isRevealed(index))
+			return;
+		boolean isFlagged = isFlagged(index), isMarked = isMarked(index);
+		if (isFlagged) flagRemoved();
+		isFlagged = !isFlagged && !isMarked;
+		isMarked = !isFlagged && !isMarked;
+		BitPlanes.clear(flagged, index);
+		BitPlanes.clear(marked, index);
+		if (isFlagged) BitPlanes.set(flagged, index);
+		if (isMarked) BitPlanes.set(marked, index);
+		cellChanged(index);
+		if (isFlagged) flagAdded();
+		flushChanges();
+	}
+
+	/** Reveals the cell with the given index. If it does not border
+	 *  any mine, the whole connected region is revealed as well.
+	 *  On the very first reveal a mine is moved out of the way. */
+	public void reveal(int index) {
+		revealCell(index);
+		flushChanges();
+	}
+
+	/** Reveals all neighbors of a revealed cell, as long as
+	 *  the number of flagged neighbors matches the cell's number. */
+	public void forceRevealNeighbors(int index) {
+		int flaggedNeighbors = 0;
+		int row = index / columns, col = index % columns;
+		int r0 = Math.max(row - 1, 0), r1 = Math.min(row + 1, rows - 1);
+		int c0 = Math.max(col - 1, 0), c1 = Math.min(col + 1, columns - 1);
+		for (int r = r0; r <= r1; r++)
+			for (int c = c0; c <= c1; c++) {
+				int n = r * columns + c;
+				if (isRevealed(n) ? isMine(n) : isFlagged(n))
+					flaggedNeighbors++;
+			}
+		if (getNearbyMines(index) == flaggedNeighbors) {
+			for (int r = r0; r <= r1; r++)
+				for (int c = c0; c <= c1; c++) {
+					int n = r * columns + c;
+					if (n == index)
+						continue;
+					if (isMarked(n)) {
+						BitPlanes.clear(marked, n);
+						cellChanged(n);
+					}
+					if (isMine(n) && !isRevealed(n) && !isFlagged(n)) {
+						explodedCell = n;
+						kaboom();
+					}
+				}
+			for (int r = r0; r <= r1; r++)
+				for (int c = c0; c <= c1; c++)
+					if (r != row || c != col)
+						revealCell(r * columns + c);
+		}
+		flushChanges();
+	}
+
+	/** All of the cells are revealed and the game is over. */
+	public void giveUp() {
+		if (!gameOver) {
+			gameOver = true;
+			gameOverReveal();
+			flushChanges();
+		}
+	}
+
+	/** Hides every cell again and removes all flags and marks, keeping the
+	 *  mines where they are. Used by generators that play a board to
+	 *  check it before handing it out. */
+	void restart() {
+		Arrays.fill(revealed, 0L);
+		Arrays.fill(flagged, 0L);
+		Arrays.fill(marked, 0L);
+		gameStarted = false;
+		gameOver = false;
+		flagCount = 0;
+		explodedCell = -1;
+	}
+
+	/** Moves a mine to a cell without one, updating the nearby mine counts.
+	 *  Used by generators to repair a board while they play it. The seed no
+	 *  longer regenerates the board, so it becomes 0, for unknown. */
+	void moveMine(int from, int to) {
+		seed = 0;
+		removeMine(from);
+		placeMine(to);
+		layoutChanged();
+		if (to == firstRevealEmptyCell)
+			firstRevealEmptyCell = from;
+	}
+
+
+	/** Resets every cell and counter to a new game state. */
+	private void reset() {
+		Arrays.fill(mines, 0L);
+		Arrays.fill(revealed, 0L);
+		Arrays.fill(flagged, 0L);
+		Arrays.fill(marked, 0L);
+		Arrays.fill(nearbyMines, (byte) 0);
+		gameStarted = false;
+		gameOver = false;
+		flagCount = 0;
+		mineCount = 0;
+		explodedCell = -1;
+		startCell = -1;
+	}
+
+	/** Adds a given number of mines to current cells randomly
+	 *  and counts the nearby mines of every cell.
+	 *  Sparse boards pick the mines with Floyd's sampling algorithm in
+	 *  O(mines); dense boards pick the safe cells instead and count all
+	 *  cells in one pass. One random safe cell is kept for
+	 *  firstRevealEmptyCell, if there is any. */
+	private void addMinesRandomly(int count, SplittableRandom random) {
+		if (count <= cells / 2) {
+			for (int j = cells - count; j < cells; j++) {
+				int t = random.nextInt(j + 1);
+				placeMine(isMine(t) ? j : t);
+			}
+		} else {
+			BitPlanes.fill(mines, cells);
+			for (int j = count; j < cells; j++) {
+				int t = random.nextInt(j + 1);
+				BitPlanes.clear(mines, isMine(t) ? t : j);
+			}
+			countNearbyMines();
+		}
+		firstRevealEmptyCell = -1;
+		if (count < cells)
+			do firstRevealEmptyCell = random.nextInt(cells);
+			while (isMine(firstRevealEmptyCell));
+	}
+
+	/** Counts the nearby mines of every cell in one pass over the board. */
+	private void countNearbyMines() {
+		for (int row = 0; row < rows; row++)
+			for (int col = 0; col < columns; col++) {
+				int count = 0;
+				int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+				for (int r = Math.max(row - 1, 0); r <= r1; r++)
+					for (int c = Math.max(col - 1, 0); c <= c1; c++)
+						if (r != row || c != col)
+							count += (int) (mines[(r * columns + c) >>> 6] >>> (r * columns + c)) & 1;
+				nearbyMines[row * columns + col] = (byte) count;
+			}
+	}
+
+	/** Puts a mine into the cell with the given index
+	 *  and increments the nearby mine count of its neighbors. */
+	private void placeMine(int index) {
+		BitPlanes.set(mines, index);
+		adjustNearbyMines(index, 1);
+	}
+
+	/** Takes the mine out of the cell with the given index
+	 *  and decrements the nearby mine count of its neighbors. */
+	private void removeMine(int index) {
+		BitPlanes.clear(mines, index);
+		adjustNearbyMines(index, -1);
+	}
+
+	/** Adds a delta to the nearby mine count of every neighbor
+	 *  of the cell with the given index. */
+	private void adjustNearbyMines(int index, int delta) {
+		int row = index / columns, col = index % columns;
+		int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+		for (int r = Math.max(row - 1, 0); r <= r1; r++)
+			for (int c = Math.max(col - 1, 0); c <= c1; c++)
+				if (r != row || c != col)
+					nearbyMines[r * columns + c] += delta;
+	}
+
+	/** Reveals a single cell, exploding it if it contains a mine.
+	 *  Changes are collected but not yet reported to the listener. */
+	private void revealCell(int index) {
+		if (isBlocked(index))
+			return;
+		if  (!gameStarted && isMine(index) && firstRevealEmptyCell >= 0) {
+			removeMine(index);
+			placeMine(firstRevealEmptyCell);
+			layoutChanged();
+		}
+		if (isMine(index)) {
+			BitPlanes.set(revealed, index);
+			explodedCell = index;
+			cellChanged(index);
+			kaboom();
+		} else if (!revealOpening(index))
+			revealRegion(index);
+	}
+
+	/** Drops the openings and metrics of the old mine layout. */
+	private void layoutChanged() {
+		openings = null;
+		metrics = null;
+	}
+
+	/** Reveals a whole opening at once from its precomputed cells, if the
+	 *  cascade from the given empty cell would reveal exactly those: no cell
+	 *  of the opening is flagged or marked, and none of its empty cells is
+	 *  revealed yet. Returns false, changing nothing, otherwise. */
+	private boolean revealOpening(int start) {
+		if (nearbyMines[start] != 0)
+			return false;
+		Openings regions = getOpenings();
+		int opening = regions.getLabel(start);
+		if (opening < 0)
+			return false;
+		int[] members = regions.getCells();
+		int from = regions.getStart(opening), to = regions.getEnd(opening);
+		boolean anyRevealed = false;
+		for (int i = from; i < to; i++) {
+			int n = members[i], w = n >>> 6;
+			long bit = 1L << n;
+			if (((flagged[w] | marked[w]) & bit) != 0)
+				return false;
+			if ((revealed[w] & bit) != 0) {
+				if (nearbyMines[n] == 0)
+					return false;
+				anyRevealed = true;
+			}
+		}
+		if (!anyRevealed) {
+			System.arraycopy(members, from, changed, changedCount, to - from);
+			changedCount += to - from;
+			for (int i = from; i < to; i++)
+				BitPlanes.set(revealed, members[i]);
+		} else
+			for (int i = from; i < to; i++)
+				if (!BitPlanes.get(revealed, members[i])) {
+					BitPlanes.set(revealed, members[i]);
+					changed[changedCount++] = members[i];
+				}
+		cellsCleared();
+		return true;
+	}
+
+	/** Reveals a safe cell and, while revealed cells border no mines,
+	 *  their unrevealed neighbors. The changed cell buffer doubles as
+	 *  the work queue, so the cascade is iterative and allocates nothing. */
+	private void revealRegion(int start) {
+		int head = changedCount;
+		BitPlanes.set(revealed, start);
+		changed[changedCount++] = start;
+		while (head < changedCount) {
+			int index = changed[head++];
+			if (getNearbyMines(index) != 0)
+				continue;
+			int row = index / columns, col = index % columns;
+			int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+			for (int r = Math.max(row - 1, 0); r <= r1; r++)
+				for (int c = Math.max(col - 1, 0); c <= c1; c++) {
+					int n = r * columns + c;
+					if (!isBlocked(n)) {
+						BitPlanes.set(revealed, n);
+						changed[changedCount++] = n;
+					}
+				}
+		}
+		cellsCleared();
+	}
+
+	/** Returns true if a cell is revealed, flagged or marked,
+	 *  so that it can not be revealed by a cascade. */
+	private boolean isBlocked(int index) {
+		int w = index >>> 6;
+		return ((revealed[w] | flagged[w] | marked[w]) & (1L << index)) != 0;
+	}
+
+	/** When a flag is removed from a cell, this method is called.
+	 *  The flag count is decremented and the listener is notified. */
+	private void flagRemoved() {
+		flagCount--;
+		fireModelEvent(ModelEvent.FLAGS_CHANGED);
+	}
+
+	/** When a flag is added to a cell, this method is called.
+	 *  The flag count is incremented and the listener is notified.
+	 *  If the game has not yet started,
+	 *  then the game is stared and the listener is notified. */
+	private void flagAdded() {
+		if (!gameStarted && !gameOver) {
+			gameStarted = true;
+			fireModelEvent(ModelEvent.GAME_STARTED);
+		}
+		flagCount++;
+		fireModelEvent(ModelEvent.FLAGS_CHANGED);
+	}
+
+	/** When cells are revealed, this method is called once per cascade.
+	 *  The game is checked for a winning condition.
+	 *  If the game has not yet started,
+	 *  then the game is stared and the listener is notified. */
+	private void cellsCleared() {
+		if (!gameStarted && !gameOver) {
+			gameStarted = true;
+			fireModelEvent(ModelEvent.GAME_STARTED);
+		}
+		checkForWin();
+	}
+
+	/** When a revealed cell contains a mine, this method is called.
+	 *  The game is set to be over, all cells are revealed,
+	 *  and the listener is notified. */
+	private void kaboom() {
+		gameOver = true;
+		gameOverReveal();
+		fireModelEvent(ModelEvent.MINE_EXPLODED);
+	}
+
+	/** If the game is not yet over, a check for a winning condition is done.
+	 *  The winning condition is met when every safe cell is revealed,
+	 *  which is a popcount over the revealed and mine planes.
+	 *  If the winning condition is met, the game is set to be over,
+	 *  all cells are revealed, and the listener is notified. */
+	private void checkForWin() {
+		if (!gameOver && isCleared()) {
+			gameOver = true;
+			gameOverReveal();
+			fireModelEvent(ModelEvent.FIELD_CLEARED);
+		}
+	}
+
+	/** Reveals every mine and every flag. Mines that were not flagged
+	 *  are counted as flags, so the flag count matches the mine count.
+	 *  The cells to reveal are computed a word at a time as
+	 *  (mines | flagged) & ~revealed, and only those cells are visited. */
+	private void gameOverReveal() {
+		int flagsAdded = 0;
+		for (int w = 0; w < revealed.length; w++) {
+			long diff = (mines[w] | flagged[w]) & ~revealed[w];
+			if (diff == 0)
+				continue;
+			flagsAdded += Long.bitCount(diff & mines[w] & ~flagged[w]);
+			revealed[w] |= diff;
+			marked[w] &= ~diff;
+			for (; diff != 0; diff &= diff - 1)
+				cellChanged((w << 6) + Long.numberOfTrailingZeros(diff));
+		}
+		if (flagsAdded > 0) {
+			flagCount += flagsAdded;
+			fireModelEvent(ModelEvent.FLAGS_CHANGED);
+		}
+	}
+
+	private void cellChanged(int index) {
+		changed[changedCount++] = index;
+	}
+
+	/** Reports all cells changed since the last flush as one batch. */
+	private void flushChanges() {
+		if (changedCount > 0 && listener != null)
+			listener.cellsChanged(changed, changedCount);
+		changedCount = 0;
+	}
+
+	/** Pending cell changes are flushed first, so the listener
+	 *  always sees the board in the state the event refers to. */
+	private void fireModelEvent(ModelEvent event) {
+		flushChanges();
+		if (listener != null)
+			listener.handleModelEvent(event);
+	}
+}
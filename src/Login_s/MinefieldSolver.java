@@ -0,0 +1,274 @@
+package Login_s;
+
+import java.util.Arrays;
+
+
+/**
+ *MinefieldSolver class
+ * Deterministic constraint-propagation solver over a MinefieldModel.
+ * It only reads what a player can see: revealed numbers and flags,
+ * which are trusted to be on mines. Every revealed number is a
+ * constraint on its unknown neighbors. The single-point rule settles a
+ * constraint on its own; the subset rule compares two overlapping
+ * constraints. The solver is incremental: each call to solve() diffs the
+ * revealed and flagged planes against the previous call and only
+ * re-examines the constraints around cells that changed.
+ */
+public class MinefieldSolver {
+
+	/** Deductions stored in the known array. */
+	static final byte
+	UNKNOWN	= 0,
+	SAFE	= 1,
+	MINE	= 2;
+
+	private final MinefieldModel model;
+	private final int rows, columns;
+	private final byte[] known;
+	private final long[] seenRevealed, seenFlagged, queued;
+	private final int[] queue;
+	private int queueHead, queueTail;
+	private final int[] safeCells, mineCells;
+	private int safeCount, mineCount;
+	private final int[] unknownA = new int[8], unknownB = new int[8];
+
+	/** Creates a solver for the given model. */
+	public MinefieldSolver(MinefieldModel model) {
+		this.model = model;
+		rows = model.getRows();
+		columns = model.getColumns();
+		int cells = model.getCellCount();
+		known = new byte[cells];
+		seenRevealed = BitPlanes.create(cells);
+		seenFlagged = BitPlanes.create(cells);
+		queued = BitPlanes.create(cells);
+		queue = new int[cells];
+		safeCells = new int[cells];
+		mineCells = new int[cells];
+	}
+
+
+	/** Forgets all deductions, for example when the model starts a new game.
+	 *  The next call to solve() examines every revealed number again. */
+	public void reset() {
+		Arrays.fill(known, UNKNOWN);
+		Arrays.fill(seenRevealed, 0L);
+		Arrays.fill(seenFlagged, 0L);
+		Arrays.fill(queued, 0L);
+		queueHead = queueTail = 0;
+		safeCount = mineCount = 0;
+	}
+
+	/** Brings the deductions up to date with the visible state of the model.
+	 *  Returns the number of cells newly classified as safe or mine. */
+	public int solve() {
+		if (!readChanges()) {
+			reset();
+			readChanges();
+		}
+		int found = safeCount + mineCount;
+		while (queueHead != queueTail) {
+			int cell = queue[queueHead];
+			queueHead = (queueHead + 1) % queue.length;
+			BitPlanes.clear(queued, cell);
+			examine(cell);
+		}
+		return safeCount + mineCount - found;
+	}
+
+	/** Returns true if the cell is deduced to be safe. */
+	public boolean isKnownSafe(int index) {
+		return known[index] == SAFE;
+	}
+
+	/** Returns true if the cell is deduced, or flagged, to be a mine. */
+	public boolean isKnownMine(int index) {
+		return known[index] == MINE || model.isFlagged(index);
+	}
+
+	/** Returns an unrevealed cell deduced to be safe, or -1 if there is none. */
+	public int nextSafeCell() {
+		while (safeCount > 0) {
+			int cell = safeCells[--safeCount];
+			if (!model.isRevealed(cell) && !model.isFlagged(cell))
+				return cell;
+		}
+		return -1;
+	}
+
+	/** Returns an unflagged cell deduced to be a mine, or -1 if there is none. */
+	public int nextMineCell() {
+		while (mineCount > 0) {
+			int cell = mineCells[--mineCount];
+			if (!model.isRevealed(cell) && !model.isFlagged(cell))
+				return cell;
+		}
+		return -1;
+	}
+
+	/** Returns the model this solver reads from. */
+	public MinefieldModel getModel() {
+		return model;
+	}
+
+	/** Returns true if a cell is revealed, flagged or deduced; that is,
+	 *  it takes no part in any constraint as an unknown. */
+	boolean isSettled(int index) {
+		return known[index] != UNKNOWN || model.isRevealed(index) || model.isFlagged(index);
+	}
+
+	/** Returns the number of mines around a revealed cell that are not yet
+	 *  flagged or deduced, or -1 if the cell shows no number. */
+	int getRemainingMines(int index) {
+		int number = model.getVisibleNumber(index);
+		if (number < 0)
+			return -1;
+		int row = index / columns, col = index % columns;
+		int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+		for (int r = Math.max(row - 1, 0); r <= r1; r++)
+			for (int c = Math.max(col - 1, 0); c <= c1; c++) {
+				int n = r * columns + c;
+				if (n != index && isKnownMine(n))
+					number--;
+			}
+		return number;
+	}
+
+	/** Stores the unknown neighbors of a cell in the given array
+	 *  and returns their number. */
+	int getUnknownNeighbors(int index, int[] out) {
+		int count = 0;
+		int row = index / columns, col = index % columns;
+		int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+		for (int r = Math.max(row - 1, 0); r <= r1; r++)
+			for (int c = Math.max(col - 1, 0); c <= c1; c++) {
+				int n = r * columns + c;
+				if (!isSettled(n))
+					out[count++] = n;
+			}
+		return count;
+	}
+
+
+	/** Diffs the visible planes of the model against the last call
+	 *  and queues the constraints around every changed cell.
+	 *  Returns false if a revealed cell was hidden again or a flag was
+	 *  removed, in which case earlier deductions may no longer hold. */
+	private boolean readChanges() {
+		for (int w = 0; w < seenRevealed.length; w++) {
+			long revealed = model.getRevealedWord(w), flagged = model.getFlaggedWord(w);
+			if ((seenRevealed[w] & ~revealed) != 0 || (seenFlagged[w] & ~flagged) != 0)
+				return false;
+			long diff = (revealed ^ seenRevealed[w]) | (flagged ^ seenFlagged[w]);
+			seenRevealed[w] = revealed;
+			seenFlagged[w] = flagged;
+			for (; diff != 0; diff &= diff - 1)
+				cellSettled((w << 6) + Long.numberOfTrailingZeros(diff));
+		}
+		return true;
+	}
+
+	/** Queues the constraint of a cell and of all its neighbors. */
+	private void cellSettled(int index) {
+		int row = index / columns, col = index % columns;
+		int r1 = Math.min(row + 1, rows - 1), c1 = Math.min(col + 1, columns - 1);
+		for (int r = Math.max(row - 1, 0); r <= r1; r++)
+			for (int c = Math.max(col - 1, 0); c <= c1; c++)
+				enqueue(r * columns + c);
+	}
+
+	private void enqueue(int index) {
+		if (BitPlanes.get(queued, index) || model.getVisibleNumber(index) < 0)
+			return;
+		BitPlanes.set(queued, index);
+		queue[queueTail] = index;
+		queueTail = (queueTail + 1) % queue.length;
+	}
+
+	/** Applies the single-point rule to a constraint, and the subset rule
+	 *  to it paired with every overlapping constraint within two cells. */
+	private void examine(int a) {
+		int countA = getUnknownNeighbors(a, unknownA);
+		if (countA == 0)
+			return;
+		int remainingA = getRemainingMines(a);
+		if (remainingA == 0 || remainingA == countA) {
+			for (int i = 0; i < countA; i++)
+				deduce(unknownA[i], remainingA == 0 ? SAFE : MINE);
+			return;
+		}
+		int row = a / columns, col = a % columns;
+		int r1 = Math.min(row + 2, rows - 1), c1 = Math.min(col + 2, columns - 1);
+		for (int r = Math.max(row - 2, 0); r <= r1; r++)
+			for (int c = Math.max(col - 2, 0); c <= c1; c++) {
+				int b = r * columns + c;
+				if (b == a || model.getVisibleNumber(b) < 0)
+					continue;
+				int countB = getUnknownNeighbors(b, unknownB);
+				if (countB == 0)
+					continue;
+				if (comparePair(countA, remainingA, countB, getRemainingMines(b)))
+					countA = getUnknownNeighbors(a, unknownA);
+				if (countA == 0)
+					return;
+				remainingA = getRemainingMines(a);
+			}
+	}
+
+	/** Compares the unknown sets in unknownA and unknownB. The mines in
+	 *  the shared cells are bounded by both constraints, which in turn
+	 *  bounds the mines in the cells that only one of them covers.
+	 *  Returns true if any cell was deduced. */
+	private boolean comparePair(int countA, int remainingA, int countB, int remainingB) {
+		int shared = 0;
+		for (int i = 0; i < countA; i++)
+			for (int j = 0; j < countB; j++)
+				if (unknownA[i] == unknownB[j])
+					shared++;
+		if (shared == 0)
+			return false;
+		int onlyA = countA - shared, onlyB = countB - shared;
+		int minShared = Math.max(0, Math.max(remainingA - onlyA, remainingB - onlyB));
+		int maxShared = Math.min(shared, Math.min(remainingA, remainingB));
+		boolean found = false;
+		if (onlyA > 0) {
+			if (remainingA - minShared == 0)
+				found |= deduceOnly(unknownA, countA, unknownB, countB, SAFE);
+			else if (remainingA - maxShared == onlyA)
+				found |= deduceOnly(unknownA, countA, unknownB, countB, MINE);
+		}
+		if (onlyB > 0) {
+			if (remainingB - minShared == 0)
+				found |= deduceOnly(unknownB, countB, unknownA, countA, SAFE);
+			else if (remainingB - maxShared == onlyB)
+				found |= deduceOnly(unknownB, countB, unknownA, countA, MINE);
+		}
+		return found;
+	}
+
+	/** Deduces every cell of the first set that is not in the second set. */
+	private boolean deduceOnly(int[] cells, int count, int[] other, int otherCount, byte value) {
+		boolean found = false;
+		outer:
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < otherCount; j++)
+				if (cells[i] == other[j])
+					continue outer;
+			found |= deduce(cells[i], value);
+		}
+		return found;
+	}
+
+	/** Records a deduction and queues the constraints around the cell. */
+	private boolean deduce(int index, byte value) {
+		if (known[index] != UNKNOWN)
+			return false;
+		known[index] = value;
+		if (value == SAFE)
+			safeCells[safeCount++] = index;
+		else
+			mineCells[mineCount++] = index;
+		cellSettled(index);
+		return true;
+	}
+}
@@ -5,6 +5,10 @@ import Login_s.Minefield.MinefieldListener;
 
 import java.awt.Font;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.*;
 
@@ -18,62 +22,169 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 	//}
 
 	private static final String
-	WINDOW_TITLE = "Minesweeper";
+	WINDOW_TITLE		= "Minesweeper",
+	HIGHSCORES_DIRECTORY	= "highscores",
+	NO_NAME				= "no name";
+	
+	/** Number of highscores kept per difficulty, and number shown. */
+	private static final int
+	HIGHSCORES_KEPT	= 100000,
+	TOP_TEN			= 10;
 	
 	
-	private enum GameDifficulty {
-            BEGINNER(10,10,10), INTERMEDIATE(15,15,70), EXPERT(20,20,120);
-            public final int rows, columns, mines;
-            GameDifficulty(int r, int c, int m) { rows = r; columns = c; mines = m; }
-	};
 	//variables
 	Minefield game;
+	BoardPool boards, noGuessBoards;
+	NoGuessGenerator generator;
 	GameDifficulty	currentDifficulty;
+	long gameRequests;
 	Highscores[] highscores;
+	HighscoreWriter highscoreWriter;
 	DisplayPanel display;
 	JMenuItem menuReset, menuTopTen, menuClearTopTen, menuExit, menuHelp, menuAbout,
-		  menuBeginner, menuIntermediate, menuExpert;
+		  menuBeginner, menuIntermediate, menuExpert, menuNoGuessStats;
+	JCheckBoxMenuItem menuNoGuess, menuRankByRate;
 	
 	
 	/** Creates an instance of the minesweeper game, in its own window. */
 	Minesweeper() {
 		super(WINDOW_TITLE);
 		game = new Minefield(this);
+		initializeBoards();
 		initializeHighscores();
 		setupGUI();
 		startNewGame(GameDifficulty.BEGINNER);
 	}
 	
-	/** Creates a Highscores object for each difficulty.
-	 *  Each highscores list is loaded from a file, if it exists. */
+	/** Creates the pool of pre-built boards and starts filling it
+	 *  for every difficulty in the background. A second pool holds
+	 *  no-guess boards, and is only filled once that mode is picked.
+	 *  If no no-guess board is found in budget, a plain one is used. */
+	private void initializeBoards() {
+		boards = new BoardPool();
+		for (GameDifficulty d : GameDifficulty.values())
+			boards.prefill(d.rows, d.columns, d.mines);
+		generator = new NoGuessGenerator();
+		noGuessBoards = new BoardPool() {
+			@Override
+			protected MinefieldModel generate(int rows, int columns, int mines) {
+				MinefieldModel board = generator.generate(rows, columns, mines);
+				return board != null ? board : super.generate(rows, columns, mines);
+			}
+		};
+	}
+	
+	/** Creates a Highscores object for each difficulty, kept in one
+	 *  section of the highscore store. The store is created from the old
+	 *  per-difficulty text files the first time, which are then renamed.
+	 *  Changes are saved in the background, and failures are shown when
+	 *  they happen. If the store cannot be opened, the text files are
+	 *  used instead, and saved again after each game won.
+	 *  Far more highscores are kept than the top ten that are shown. */
 	private void initializeHighscores() {
 		highscores = new Highscores[GameDifficulty.values().length];
+		try {
+			HighscoreStore store = HighscoreStore.open(new File(HIGHSCORES_DIRECTORY),
+				GameDifficulty.values().length, HIGHSCORES_KEPT);
+			if (store.isEmpty())
+				importHighscoreFiles(store);
+			highscoreWriter = new HighscoreWriter(store);
+			highscoreWriter.setErrorListener(new HighscoreWriter.ErrorListener() {
+				public void writeFailed(IOException e) {
+					JOptionPane.showMessageDialog(Minesweeper.this, "The highscores could not be saved:\n" + e.getMessage(),
+						"Warning", JOptionPane.WARNING_MESSAGE);
+				}
+			});
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(null, "Highscores will be kept in text files instead:\n" + e.getMessage(),
+				"Warning", JOptionPane.WARNING_MESSAGE);
+		}
 		for (GameDifficulty d : GameDifficulty.values()) {
-			Highscores hs = new Highscores(10);
-			hs.loadFromFile("highscores/" + d.toString() + ".txt");
+			Highscores hs = new Highscores(HIGHSCORES_KEPT);
+			if (highscoreWriter != null)
+				hs.attach(highscoreWriter, d.ordinal());
+			else
+				hs.loadFromFile(getHighscoreFile(d).getPath());
 			highscores[d.ordinal()] = hs;
 			hs.setHighscoreFormat(hs.new HighscoreFormat() {
 				public String format(Highscores.Highscore hs) {
-					return String.format("%02d:%02d:%02d - %s", hs.SCORE / 3600, hs.SCORE / 60 % 60, hs.SCORE % 60, hs.NAME);
+					return formatTime(hs.SCORE) + String.format(" - %s (3BV %d, %.2f/s)", hs.NAME, hs.THREE_BV, hs.getRate());
 				}
 			});
 		}
 	}
 	
-	/** Starts a new game of minesweeper with a given difficulty.
-	 *  If new difficulty is different from the current one,
-	 *  the window is resized to accomodate the new board dimensions.
-	 *  The display panel clock and mine counter is also reset. */
+	/** Copies the highscores of the old text files into the store,
+	 *  and renames the files, so they are copied only once. The store
+	 *  only takes them while it is empty, under its lock, so if several
+	 *  games start at once, only one of them copies the files. */
+	private void importHighscoreFiles(HighscoreStore store) throws IOException {
+		List<List<HighscoreStore.Record>> records = new ArrayList<List<HighscoreStore.Record>>();
+		List<File> files = new ArrayList<File>();
+		for (GameDifficulty d : GameDifficulty.values()) {
+			List<HighscoreStore.Record> section = new ArrayList<HighscoreStore.Record>();
+			records.add(section);
+			File file = getHighscoreFile(d);
+			Highscores hs = new Highscores(HIGHSCORES_KEPT);
+			if (!hs.loadFromFile(file.getPath()))
+				continue;
+			files.add(file);
+			for (int rank = 1; rank <= hs.size(); rank++) {
+				Highscores.Highscore h = hs.get(rank);
+				section.add(new HighscoreStore.Record(h.NAME, h.SCORE, h.THREE_BV, h.TIME, h.SEED));
+			}
+		}
+		if (!files.isEmpty() && store.importIfEmpty(records))
+			for (File file : files)
+				file.renameTo(new File(file.getPath() + ".bak"));
+	}
+	
+	/** Formats a time in milliseconds as hours, minutes, seconds and
+	 *  milliseconds. */
+	private static String formatTime(int millis) {
+		int seconds = millis / 1000;
+		return String.format("%02d:%02d:%02d.%03d", seconds / 3600, seconds / 60 % 60, seconds % 60, millis % 1000);
+	}
+	
+	/** Returns the old text file of the highscores of a difficulty. */
+	private static File getHighscoreFile(GameDifficulty d) {
+		return new File(HIGHSCORES_DIRECTORY, d.toString() + ".txt");
+	}
+	
+	/** Starts a new game of minesweeper with a given difficulty,
+	 *  or with the current difficulty if none is given.
+	 *  The board is taken from the pool of pre-built boards, which
+	 *  builds one at once if none is ready. No-guess boards can take
+	 *  seconds to build, so if that mode is picked and none is ready, the
+	 *  game starts when the pool hands one over, and the event thread
+	 *  does not wait for it. Only the game asked for last is started. */
 	private void startNewGame(GameDifficulty difficulty) {
 		if (difficulty == null)
-			game.createNewGame();
-		else {
-			game.createNewGame(difficulty.rows, difficulty.columns, difficulty.mines);
-			if (currentDifficulty != difficulty) {
-				currentDifficulty = difficulty;
-				pack();
-				setLocationRelativeTo(null);
+			difficulty = currentDifficulty;
+		final GameDifficulty d = difficulty;
+		final long request = ++gameRequests;
+		if (!menuNoGuess.isSelected()) {
+			startGame(d, boards.take(d.rows, d.columns, d.mines));
+			return;
+		}
+		noGuessBoards.take(d.rows, d.columns, d.mines, new BoardPool.Receiver() {
+			public void boardReady(MinefieldModel board) {
+				if (request == gameRequests)
+					startGame(d, board);
 			}
+		});
+	}
+	
+	/** Starts a game on the given board.
+	 *  If new difficulty is different from the current one,
+	 *  the window is resized to accomodate the new board dimensions.
+	 *  The display panel clock and mine counter is also reset. */
+	private void startGame(GameDifficulty difficulty, MinefieldModel board) {
+		game.startGame(board);
+		if (currentDifficulty != difficulty) {
+			currentDifficulty = difficulty;
+			pack();
+			setLocationRelativeTo(null);
 		}
 		display.resetClock();
 		display.setMines(game.getMineCount());
@@ -89,6 +200,25 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		else if (source == menuIntermediate) startNewGame(GameDifficulty.INTERMEDIATE);
 		else if (source == menuExpert) startNewGame(GameDifficulty.EXPERT);
 		else if (source == menuReset) startNewGame(null);
+		else if (source == menuNoGuess) {
+			if (menuNoGuess.isSelected()) {
+				// the board needed next first, then the others
+				noGuessBoards.prefill(currentDifficulty.rows, currentDifficulty.columns, currentDifficulty.mines);
+				for (GameDifficulty d : GameDifficulty.values())
+					noGuessBoards.prefill(d.rows, d.columns, d.mines);
+			}
+			startNewGame(null);
+		}
+		else if (source == menuRankByRate) {
+			for (Highscores hs : highscores)
+				hs.setRanking(menuRankByRate.isSelected() ? Highscores.Ranking.RATE : Highscores.Ranking.TIME);
+		}
+		else if (source == menuNoGuessStats) {
+			StringBuilder stats = new StringBuilder();
+			for (GameDifficulty d : GameDifficulty.values())
+				stats.append(d).append(": ").append(generator.getStatistics(d.rows, d.columns, d.mines)).append('\n');
+			JOptionPane.showMessageDialog(this, stats, "NO-GUESS BOARD GENERATION", JOptionPane.PLAIN_MESSAGE);
+		}
 		else if (source == display.getResetButton()) startNewGame(null);
 		else if (source == display.getGiveUpButton()) 
                 {
@@ -97,16 +227,13 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		}
 		else if (source == menuTopTen) {
 			Highscores hs = highscores[currentDifficulty.ordinal()];
-			JOptionPane.showMessageDialog(this,
-			hs.size() > 0 ? hs : "No highscores yet!",
-			currentDifficulty + " TOP TEN HIGHSCORES",
-			JOptionPane.PLAIN_MESSAGE); 
+			new HighscoresDialog(this, currentDifficulty + " HIGHSCORES", hs).setVisible(true);
 		}
 		else if (source == menuClearTopTen) {
 			if (JOptionPane.YES_OPTION == JOptionPane.showConfirmDialog(null, "Are you sure?", "Warning", JOptionPane.YES_NO_OPTION)) {
 				Highscores hs = highscores[currentDifficulty.ordinal()];
 				hs.clear();
-				hs.saveToFile("highscores/" + currentDifficulty.toString() + ".txt");
+				saveHighscoreFile(hs);
 				JOptionPane.showMessageDialog(this,
 				currentDifficulty + " highscores cleared!",
 				currentDifficulty + " TOP TEN HIGHSCORES",
@@ -146,21 +273,44 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 			display.stopClock();
 		else if (event == Minefield.MinefieldEvent.MINEFIELD_CLEARED) {
 			int score = display.stopClock();
+			int threeBV = game.getModel().getMetrics().get3BV();
+			long seed = game.getModel().getSeed();
 			Highscores hs = highscores[currentDifficulty.ordinal()];
-			if (hs.isHighscore(score)) {
-				String name = JOptionPane.showInputDialog(
-					"Congratulations!\n"
-					+ "Your score of " + score + " made it into TOP TEN!\n"
-					+ "Please enter your name:");
-				if (name == null)
-					name = "no name";
-				hs.add(name, score);
-				JOptionPane.showMessageDialog(this, hs, currentDifficulty + " TOP TEN", JOptionPane.PLAIN_MESSAGE);
-				hs.saveToFile("highscores/" + currentDifficulty.toString() + ".txt");
-			}
+			submitScore(hs, score, threeBV, seed);
 		}
 	}
 	
+	/** Adds a winning score to the highscores of the current difficulty,
+	 *  asking for a name and showing the top ten if it made it there.
+	 *  Scores outside the top ten, and those whose prompt was cancelled,
+	 *  are kept as "no name", so no score is put down to another player.
+	 *  Without a highscore store, the text file is written again. */
+	private void submitScore(Highscores hs, int score, int threeBV, long seed) {
+		if (hs.getRank(score, threeBV) <= TOP_TEN) {
+			String name = JOptionPane.showInputDialog(
+				"Congratulations!\n"
+				+ "Your time of " + formatTime(score) + " made it into TOP TEN!\n"
+				+ String.format("It beats %.1f%% of all %d kept games.%n", hs.getIndex().getPercentile(score), hs.getIndex().size())
+				+ "Please enter your name:");
+			if (name == null)
+				name = NO_NAME;
+			hs.add(name, score, threeBV, seed);
+			JOptionPane.showMessageDialog(this, hs.toString(1, TOP_TEN), currentDifficulty + " TOP TEN", JOptionPane.PLAIN_MESSAGE);
+		}
+		else
+			hs.add(NO_NAME, score, threeBV, seed);
+		saveHighscoreFile(hs);
+	}
+	
+	/** Writes the highscores of the current difficulty to its text file,
+	 *  if there is no highscore store to keep them. */
+	private void saveHighscoreFile(Highscores hs) {
+		File file = getHighscoreFile(currentDifficulty);
+		if (highscoreWriter == null && !hs.saveToFile(file.getPath()))
+			JOptionPane.showMessageDialog(this, "The highscores could not be saved to " + file,
+				"Warning", JOptionPane.WARNING_MESSAGE);
+	}
+	
 	
 	/** Initializes and sets up all GUI components. This method is called once
 	 *  during the creation of the instance from the constructor. */
@@ -172,7 +322,9 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		display = new DisplayPanel();
 		display.getResetButton().addActionListener(this);
 		display.getGiveUpButton().addActionListener(this);
-		getContentPane().add(game);
+		JScrollPane scroller = new JScrollPane(game);
+		scroller.setBorder(null);
+		getContentPane().add(scroller);
 		getContentPane().add(display);
 		pack();
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -190,8 +342,11 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 				menuBeginner = new JMenuItem( "Play Beginner" );
 				menuIntermediate = new JMenuItem( "Play Intermediate" );
 				menuExpert = new JMenuItem( "Play Expert" );
+				menuNoGuess = new JCheckBoxMenuItem( "No-Guess Boards" );
+				menuNoGuessStats = new JMenuItem( "No-Guess Statistics" );
 				menuTopTen = new JMenuItem( "Show Highscores" );
 				menuClearTopTen = new JMenuItem( "Clear Highscores" );
+				menuRankByRate = new JCheckBoxMenuItem( "Rank by 3BV/s" );
 				menuExit = new JMenuItem( "Exit" );
                                 JMenu helpMenu = new JMenu( "Help" );
 				menuHelp = new JMenuItem( "Help" );
@@ -204,8 +359,11 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		menuBeginner.setFont(new Font(menuBeginner.getFont().getName(), Font.BOLD, 20));
 		menuIntermediate.setFont(new Font(menuIntermediate.getFont().getName(), Font.BOLD, 20));
 		menuExpert.setFont(new Font(menuExpert.getFont().getName(), Font.BOLD, 20));
+		menuNoGuess.setFont(new Font(menuNoGuess.getFont().getName(), Font.BOLD, 20));
+		menuNoGuessStats.setFont(new Font(menuNoGuessStats.getFont().getName(), Font.BOLD, 20));
 		menuTopTen.setFont(new Font(menuTopTen.getFont().getName(), Font.BOLD, 20));
 		menuClearTopTen.setFont(new Font(menuClearTopTen.getFont().getName(), Font.BOLD, 20));
+		menuRankByRate.setFont(new Font(menuRankByRate.getFont().getName(), Font.BOLD, 20));
 		menuExit.setFont(new Font(menuExit.getFont().getName(), Font.BOLD, 20));
 		menuHelp.setFont(new Font(menuHelp.getFont().getName(), Font.BOLD, 20));
 		menuAbout.setFont(new Font(menuAbout.getFont().getName(), Font.BOLD, 20));
@@ -218,8 +376,11 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		menuBeginner.setMnemonic( KeyEvent.VK_B );
 		menuIntermediate.setMnemonic( KeyEvent.VK_A );
 		menuExpert.setMnemonic( KeyEvent.VK_E );
+		menuNoGuess.setMnemonic( KeyEvent.VK_N );
+		menuNoGuessStats.setMnemonic( KeyEvent.VK_S );
 		menuTopTen.setMnemonic( KeyEvent.VK_T );
 		menuClearTopTen.setMnemonic( KeyEvent.VK_C );
+		menuRankByRate.setMnemonic( KeyEvent.VK_3 );
 		menuExit.setMnemonic( KeyEvent.VK_X );
 		menuHelp.setMnemonic( KeyEvent.VK_L );
 		menuAbout.setMnemonic( KeyEvent.VK_A );
@@ -232,8 +393,11 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 					pickGameMenu.add(menuBeginner);
 					pickGameMenu.add(menuIntermediate);
 					pickGameMenu.add(menuExpert);
+				gameMenu.add(menuNoGuess);
+				gameMenu.add(menuNoGuessStats);
 				gameMenu.add(menuTopTen);
 				gameMenu.add(menuClearTopTen);
+				gameMenu.add(menuRankByRate);
 				gameMenu.add(menuExit);
 			menu.add(helpMenu);
 				helpMenu.add(menuHelp);
@@ -244,8 +408,11 @@ public class Minesweeper extends JFrame implements ActionListener, MinefieldList
 		menuBeginner.addActionListener(this);
 		menuIntermediate.addActionListener(this);
 		menuExpert.addActionListener(this);
+		menuNoGuess.addActionListener(this);
+		menuNoGuessStats.addActionListener(this);
 		menuTopTen.addActionListener(this);
 		menuClearTopTen.addActionListener(this);
+		menuRankByRate.addActionListener(this);
 		menuExit.addActionListener(this);
 		menuHelp.addActionListener(this);
 		menuAbout.addActionListener(this);
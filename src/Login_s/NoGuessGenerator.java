@@ -0,0 +1,277 @@
+package Login_s;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ *NoGuessGenerator class
+ * Generates boards that can be cleared without guessing. Random boards are
+ * sampled and played by a MinefieldSolver from their start cell, an empty
+ * cell that opens a region; a sample is accepted once it is cleared, and
+ * its seed regenerates it. The search runs on one thread per processor,
+ * each with its own random generator, and stops at the first success or
+ * when the attempt or time budget runs out.
+ * Until the search has one, a sample the solver gets stuck on is repaired
+ * instead of dropped: a mine next to the revealed area is moved into the
+ * untouched interior and the solver goes on. A repaired board no longer
+ * comes from its seed, so it is kept aside and handed out only if no
+ * sample is cleared as it is within the budget.
+ */
+public class NoGuessGenerator {
+
+	/** Default budget of a single search. */
+	private static final int
+	DEFAULT_MAX_ATTEMPTS	= 100000,
+	DEFAULT_TIME_BUDGET		= 2000;
+
+	/** Maximum number of mines moved while playing one sample. */
+	private static final int
+	MAX_REPAIRS = 64;
+
+	private final ExecutorService workers;
+	private final int threads;
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private volatile long timeBudget = DEFAULT_TIME_BUDGET;
+	private final Map<String, Statistics> statistics = new HashMap<String, Statistics>();
+
+	/** Creates a NoGuessGenerator with one daemon worker thread
+	 *  per available processor. */
+	public NoGuessGenerator() {
+		threads = Runtime.getRuntime().availableProcessors();
+		workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "NoGuessGenerator worker " + count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+	}
+
+
+	/** Sets the maximum number of boards sampled by a single search. */
+	public void setMaxAttempts(int attempts) {
+		maxAttempts = attempts;
+	}
+
+	/** Sets the maximum time, in milliseconds, spent by a single search. */
+	public void setTimeBudget(long millis) {
+		timeBudget = millis;
+	}
+
+	/** Returns a new, unstarted board of the given size that the solver
+	 *  clears from its start cell without guessing, or null if none was
+	 *  found within the budget. Its seed regenerates it, unless it had to
+	 *  be repaired, in which case the seed is 0. */
+	public MinefieldModel generate(final int rows, final int columns, final int mines) {
+		long start = System.nanoTime();
+		final long deadline = start + timeBudget * 1000000L;
+		final AtomicInteger attempts = new AtomicInteger();
+		final AtomicInteger cleared = new AtomicInteger(), repairTries = new AtomicInteger(),
+			repaired = new AtomicInteger();
+		final AtomicReference<MinefieldModel> found = new AtomicReference<MinefieldModel>();
+		final AtomicReference<MinefieldModel> fallback = new AtomicReference<MinefieldModel>();
+		SplittableRandom random = new SplittableRandom(MinefieldModel.newSeed());
+		List<Callable<Void>> searches = new ArrayList<Callable<Void>>(threads);
+		for (int i = 0; i < threads; i++) {
+			final SplittableRandom threadRandom = random.split();
+			searches.add(new Callable<Void>() {
+				public Void call() {
+					MinefieldModel board = new MinefieldModel(rows, columns);
+					MinefieldSolver solver = new MinefieldSolver(board);
+					while (found.get() == null && attempts.incrementAndGet() <= maxAttempts
+							&& System.nanoTime() < deadline) {
+						board.newGame(mines, threadRandom.nextLong());
+						int cell = pickStartCell(board, threadRandom);
+						if (cell < 0)
+							continue;
+						int maxRepairs = fallback.get() == null ? MAX_REPAIRS : 0;
+						int repairs = solve(board, solver, cell, maxRepairs, threadRandom);
+						if (repairs != 0 && maxRepairs > 0)
+							repairTries.incrementAndGet();
+						if (repairs < 0)
+							continue;
+						board.restart();
+						board.setStartCell(cell);
+						if (repairs == 0) {
+							cleared.incrementAndGet();
+							found.compareAndSet(null, board);
+							break;
+						}
+						repaired.incrementAndGet();
+						if (fallback.compareAndSet(null, board)) {
+							board = new MinefieldModel(rows, columns);
+							solver = new MinefieldSolver(board);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			workers.invokeAll(searches);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RejectedExecutionException e) {
+			// shut down; fall through with whatever was found
+		}
+		MinefieldModel board = found.get();
+		if (board == null)
+			board = fallback.get();
+		getStatistics(rows, columns, mines).record(board != null, Math.min(attempts.get(), maxAttempts),
+			cleared.get(), repairTries.get(), repaired.get(), System.nanoTime() - start);
+		return board;
+	}
+
+	/** Returns the generation statistics for the given board size. */
+	public Statistics getStatistics(int rows, int columns, int mines) {
+		String key = rows + "x" + columns + "x" + mines;
+		synchronized (statistics) {
+			Statistics s = statistics.get(key);
+			if (s == null) {
+				s = new Statistics();
+				statistics.put(key, s);
+			}
+			return s;
+		}
+	}
+
+	/** Stops all worker threads. A running search returns null. */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+
+	/** Returns an empty cell of a new board, scanning from a random
+	 *  position, or -1 if the board has none. */
+	static int pickStartCell(MinefieldModel board, SplittableRandom random) {
+		int cells = board.getCellCount();
+		int offset = random.nextInt(cells);
+		for (int i = 0; i < cells; i++) {
+			int cell = (offset + i) % cells;
+			if (!board.isMine(cell) && board.getNearbyMines(cell) == 0)
+				return cell;
+		}
+		return -1;
+	}
+
+	/** Plays a new board from the given start cell, revealing only the cells
+	 *  the solver proves safe, and repairing the board where it gets stuck,
+	 *  at most the given number of times. Returns the number of repairs if
+	 *  that clears the board, or -1 if not. The board is left played. */
+	static int solve(MinefieldModel board, MinefieldSolver solver, int start, int maxRepairs,
+			SplittableRandom random) {
+		solver.reset();
+		board.reveal(start);
+		int repairs = 0;
+		while (!board.isGameOver()) {
+			solver.solve();
+			int cell = solver.nextSafeCell();
+			if (cell >= 0)
+				board.reveal(cell);
+			else if (repairs < maxRepairs && repair(board, solver, random)) {
+				repairs++;
+				solver.reset();
+			} else
+				return -1;
+		}
+		return board.isCleared() ? repairs : -1;
+	}
+
+	/** Moves a random undeduced mine next to the revealed area to a random
+	 *  cell that touches no revealed cell, so placing it changes no revealed
+	 *  number. Returns false if there is no such mine or cell. */
+	private static boolean repair(MinefieldModel board, MinefieldSolver solver, SplittableRandom random) {
+		int frontierMines = 0, interiorCells = 0;
+		int[] frontier = new int[board.getCellCount()], interior = new int[board.getCellCount()];
+		for (int i = 0; i < board.getCellCount(); i++) {
+			if (solver.isSettled(i))
+				continue;
+			if (touchesRevealed(board, i)) {
+				if (board.isMine(i))
+					frontier[frontierMines++] = i;
+			} else if (!board.isMine(i))
+				interior[interiorCells++] = i;
+		}
+		if (frontierMines == 0 || interiorCells == 0)
+			return false;
+		board.moveMine(frontier[random.nextInt(frontierMines)], interior[random.nextInt(interiorCells)]);
+		return true;
+	}
+
+	private static boolean touchesRevealed(MinefieldModel board, int index) {
+		int columns = board.getColumns();
+		int row = index / columns, col = index % columns;
+		for (int r = row - 1; r <= row + 1; r++)
+			for (int c = col - 1; c <= col + 1; c++)
+				if (board.isValidCellLocation(r, c) && board.isRevealed(board.indexOf(r, c)))
+					return true;
+		return false;
+	}
+
+
+	/**
+	 *Statistics class
+	 * Running totals of the searches for one board size.
+	 */
+	public static class Statistics {
+
+		private int searches, successes;
+		private long attempts, cleared, repairTries, repaired, nanos;
+
+		synchronized void record(boolean success, int searchAttempts, int searchCleared,
+				int searchRepairTries, int searchRepaired, long searchNanos) {
+			searches++;
+			if (success)
+				successes++;
+			attempts += searchAttempts;
+			cleared += searchCleared;
+			repairTries += searchRepairTries;
+			repaired += searchRepaired;
+			nanos += searchNanos;
+		}
+
+		/** Returns the number of searches run so far. */
+		public synchronized int getSearches() {
+			return searches;
+		}
+
+		/** Returns the fraction of searches that found a board in budget. */
+		public synchronized double getSuccessRate() {
+			return searches == 0 ? 0 : (double) successes / searches;
+		}
+
+		/** Returns the fraction of sampled boards that were cleared as they
+		 *  were, without moving any mine. */
+		public synchronized double getAcceptanceRate() {
+			return attempts == 0 ? 0 : (double) cleared / attempts;
+		}
+
+		/** Returns the fraction of the samples the solver got stuck on,
+		 *  while repairs were allowed, that were cleared after repairs. */
+		public synchronized double getRepairRate() {
+			return repairTries == 0 ? 0 : (double) repaired / repairTries;
+		}
+
+		/** Returns the average time of a search, in milliseconds. */
+		public synchronized double getAverageMillis() {
+			return searches == 0 ? 0 : nanos / 1e6 / searches;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("%d boards, %.1f ms each, %.2f%% of samples accepted unrepaired, "
+				+ "%.0f%% of stuck samples repaired, %.0f%% found in budget",
+				searches, getAverageMillis(), 100 * getAcceptanceRate(), 100 * getRepairRate(),
+				100 * getSuccessRate());
+		}
+	}
+}
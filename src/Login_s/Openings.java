@@ -0,0 +1,158 @@
+package Login_s;
+
+import java.util.Arrays;
+
+
+/**
+ *Openings class
+ * The openings of one board layout, labelled once when the board is
+ * generated. An opening is a connected region of empty cells together
+ * with the numbers around it; clicking any of its empty cells reveals
+ * all of it. The empty cells are joined with a union-find in one pass
+ * over the board, and the cells of every opening are stored back to back
+ * in one array, indexed by the opening's label (compressed sparse rows).
+ */
+final class Openings {
+
+	private final int[] label;
+	private final int[] start;
+	private final int[] cells;
+	private final int isolatedNumbers;
+
+	/** Labels the openings of the current mine layout of a board. */
+	Openings(MinefieldModel board) {
+		int rows = board.getRows(), columns = board.getColumns(), count = board.getCellCount();
+
+		// Join every empty cell with the empty neighbors already visited
+		int[] parent = new int[count];
+		for (int row = 0; row < rows; row++)
+			for (int col = 0; col < columns; col++) {
+				int index = row * columns + col;
+				parent[index] = -1;
+				if (!isEmpty(board, index))
+					continue;
+				parent[index] = index;
+				if (col > 0)
+					union(parent, index, index - 1);
+				if (row > 0)
+					for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, columns - 1); c++)
+						union(parent, index, (row - 1) * columns + c);
+			}
+
+		// Every parent has a lower index, so one pass in order points each
+		// cell at its root; a second pass numbers the roots in order and
+		// gives each cell its root's number, in the same array
+		for (int index = 0; index < count; index++)
+			if (parent[index] >= 0)
+				parent[index] = parent[parent[index]];
+		label = parent;
+		int openings = 0;
+		int[] size = new int[8];
+		for (int index = 0; index < count; index++) {
+			if (parent[index] < 0)
+				continue;
+			if (parent[index] == index) {
+				label[index] = openings++;
+				if (openings == size.length)
+					size = Arrays.copyOf(size, openings * 2);
+			}
+			else
+				label[index] = label[parent[index]];
+			size[label[index] + 1]++;
+		}
+
+		// Bucket the empty cells by label
+		int[] first = new int[openings + 1];
+		for (int i = 0; i < openings; i++)
+			first[i + 1] = first[i] + size[i + 1];
+		int[] empty = new int[first[openings]];
+		int[] next = Arrays.copyOf(first, openings);
+		for (int index = 0; index < count; index++)
+			if (label[index] >= 0)
+				empty[next[label[index]]++] = index;
+
+		// Each opening holds its empty cells and every cell around them once
+		int[] stamp = new int[count];
+		Arrays.fill(stamp, -1);
+		start = new int[openings + 1];
+		int[] members = new int[empty.length + 8];
+		int length = 0;
+		for (int i = 0; i < openings; i++) {
+			start[i] = length;
+			for (int e = first[i]; e < first[i + 1]; e++) {
+				int row = empty[e] / columns, col = empty[e] % columns;
+				if (length + 9 > members.length)
+					members = Arrays.copyOf(members, members.length * 2);
+				for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++)
+					for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, columns - 1); c++) {
+						int n = r * columns + c;
+						if (stamp[n] != i) {
+							stamp[n] = i;
+							members[length++] = n;
+						}
+					}
+			}
+		}
+		start[openings] = length;
+		cells = members;
+
+		int isolated = 0;
+		for (int index = 0; index < count; index++)
+			if (stamp[index] < 0 && !board.isMine(index))
+				isolated++;
+		isolatedNumbers = isolated;
+	}
+
+
+	/** Returns the number of openings. */
+	int size() {
+		return start.length - 1;
+	}
+
+	/** Returns the number of numbered cells that border no opening. */
+	int getIsolatedNumbers() {
+		return isolatedNumbers;
+	}
+
+	/** Returns the label of the opening an empty cell belongs to,
+	 *  or -1 if the cell is not empty. */
+	int getLabel(int index) {
+		return label[index];
+	}
+
+	/** Returns the index in getCells() of the first cell of an opening. */
+	int getStart(int opening) {
+		return start[opening];
+	}
+
+	/** Returns the index in getCells() just past the last cell of an opening. */
+	int getEnd(int opening) {
+		return start[opening + 1];
+	}
+
+	/** Returns the cells of all openings, back to back. Not a copy. */
+	int[] getCells() {
+		return cells;
+	}
+
+
+	private static boolean isEmpty(MinefieldModel board, int index) {
+		return !board.isMine(index) && board.getNearbyMines(index) == 0;
+	}
+
+	/** Joins the sets of two cells if the second one is empty. */
+	private static void union(int[] parent, int a, int b) {
+		if (parent[b] < 0)
+			return;
+		a = find(parent, a);
+		b = find(parent, b);
+		if (a != b)
+			parent[Math.max(a, b)] = Math.min(a, b);
+	}
+
+	private static int find(int[] parent, int index) {
+		while (parent[index] != index)
+			index = parent[index] = parent[parent[index]];
+		return index;
+	}
+}
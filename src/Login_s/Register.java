@@ -5,20 +5,11 @@
  */
 package Login_s;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 import java.awt.Toolkit;
 import java.awt.event.WindowEvent;
-import java.io.File;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 /**
  *
  * @author User
@@ -47,44 +38,18 @@ public class Register extends javax.swing.JFrame {
     public static String checkusername;
     public static String checkpassword;
     public static String append="a";
+/** Returns 1, after telling the user, if the user name is already
+ *  registered, or 0 otherwise. The name is looked up in the shared
+ *  UserRepository, which reads the accounts file only once. */
 public int checkExsisting(String a,String b)
 {
     int check=0;
-     try {
-    File fXmlFile = new File("C:\\XML\\data.xml");
-    DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-    Document doc = dBuilder.parse(fXmlFile);
-    doc.getDocumentElement().normalize();
-
-    //System.out.println("Root element :" + doc.getDocumentElement().getNodeName());
-    NodeList nList = doc.getElementsByTagName("Player");
-    //System.out.println("----------------------------");
-
-    for (int temp = 0; temp < nList.getLength(); temp++) {
-        Node nNode = nList.item(temp);
-        //System.out.println("\nCurrent Element :" + nNode.getNodeName());
-        if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-            Element eElement = (Element) nNode;
-            
-            checkusername=eElement.getElementsByTagName("UserName")
-                                 .item(0).getTextContent();
-            checkpassword=eElement.getElementsByTagName("Password")
-                                 .item(0).getTextContent();
-            //System.out.println(checkusername+checkpassword);
-            if(a.equals(checkusername))
-            {
-            JOptionPane.showMessageDialog(null,"UserName already Exsists","Login Error",JOptionPane.ERROR_MESSAGE);
-            check=1;
-            return check;
-            } 
-            
-        }
-    }
-    } catch (Exception e) {
-    e.printStackTrace();
+    if(UserRepository.getDefault().contains(a))
+    {
+    JOptionPane.showMessageDialog(null,"UserName already Exsists","Login Error",JOptionPane.ERROR_MESSAGE);
+    check=1;
     }
-     return check;
+    return check;
 }
     
     
@@ -208,42 +173,10 @@ public int checkExsisting(String a,String b)
         if(checkExsisting==0){
         int verifiedValue=0;
         verifiedValue=verifyLogin(RegisterName,RegisterPass,RegisterPassReEntry);
-   
-         //creating xml
-        try{
-            //String s="a";
-    DocumentBuilderFactory documentBuilderFactory=DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder=documentBuilderFactory.newDocumentBuilder();
-    
-    Document document =documentBuilder.newDocument();
-    
-    Element element =  document.createElement("Player");
-    document.appendChild(element);
-   
-    Attr attr = document.createAttribute("Id");
-    attr.setValue(append);
-    append=append+"a";
-    element.setAttributeNode(attr);
-    
-    Element Username = document.createElement("UserName");
-    Username.appendChild(document.createTextNode(RegisterName));
-    element.appendChild(Username);
-    
-    Element password = document.createElement("Password");
-    password.appendChild(document.createTextNode(RegisterPass));
-    element.appendChild(password);
-    
-    TransformerFactory transformerFactory = TransformerFactory.newInstance();
-    Transformer transformer = transformerFactory.newTransformer();
-    
-    DOMSource source = new DOMSource(document);
-    
-        StreamResult streamResult = new StreamResult(new File("C:\\XML\\data.xml"));
-        transformer.transform(source,streamResult);
+        if(verifiedValue==1)
+        {
+            registerUser(RegisterName,RegisterPass);
         }
-        catch(Exception e){
-            System.out.println(e);
-        }  
         }
         else 
         {
@@ -254,6 +187,38 @@ public int checkExsisting(String a,String b)
     }//GEN-LAST:event_jButton1ActionPerformed
    
     
+    /** Appends the player to the accounts journal, off the event thread
+     *  since it waits for the fsync, and only then tells the user whether
+     *  the account was created. */
+    private void registerUser(final String RegisterName,final String RegisterPass)
+    {
+        jButton1.setEnabled(false);
+        new SwingWorker<Boolean, Void>() {
+            protected Boolean doInBackground() throws IOException {
+                return UserRepository.getDefault().register(RegisterName,RegisterPass);
+            }
+            protected void done() {
+                jButton1.setEnabled(true);
+                try{
+                    if(get())
+                    {
+                        JOptionPane.showMessageDialog(null,"User Created","User Successfully Created",JOptionPane.INFORMATION_MESSAGE);
+                    }
+                    else
+                    {
+                        JOptionPane.showMessageDialog(null,"UserName already Exsists","Login Error",JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                catch(ExecutionException e){
+                    JOptionPane.showMessageDialog(null,"User could not be saved:\n"+e.getCause().getMessage(),"Register Error",JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
     private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
         // TODO add your handling code here:
         Login obj1=new Login();
@@ -320,7 +285,6 @@ public int checkExsisting(String a,String b)
         }
         if(uppercaseCount>0 && digitCount>0 && specialCharCount>0)
         {
-        JOptionPane.showMessageDialog(null,"User Created","User Successfully Created",JOptionPane.INFORMATION_MESSAGE);
         store(RegisterName,RegisterPass);
         temp=1;
         }
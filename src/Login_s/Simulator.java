@@ -0,0 +1,407 @@
+package Login_s;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ *Simulator class
+ * Headless batch runner that plays many games with a given strategy and
+ * prints their statistics as CSV. Games are played on MinefieldModel with
+ * the same calls the Minefield mouse handler makes, so first-click safety,
+ * flags and chording follow the rules of the real game.
+ * Games are spread over all processors. Every game's board and random
+ * choices come from the base seed and the game's number, and the greedy
+ * strategy bounds its probabilities by enumeration steps rather than
+ * time, so a run is repeatable whatever the number of threads or the
+ * load of the machine.
+ *
+ * Usage: Simulator [-games N] [-threads N] [-seed N]
+ *                  [-board beginner|intermediate|expert|RxCxM]...
+ *                  [-strategy random|solver|greedy]...
+ */
+public class Simulator {
+
+	private static final String
+	CSV_HEADER = "board,strategy,games,wins,win_rate,avg_clicks,avg_3bv,avg_ms_per_game,games_per_second";
+
+	/** Number of games a thread takes at a time. */
+	private static final int
+	CHUNK_SIZE = 64;
+
+	/** Enumeration steps a probability computation in the greedy strategy
+	 *  may take per frontier component. */
+	private static final long
+	PROBABILITY_STEPS = 1 << 20;
+
+
+	/** The strategies a simulated player can use. */
+	public enum Strategy {
+		/** Clicks random unrevealed cells. */
+		RANDOM,
+		/** Plays every cell the MinefieldSolver proves safe, flagging and
+		 *  chording where that saves clicks, and guesses at random. */
+		SOLVER,
+		/** Plays like SOLVER, but guesses the cell with the lowest
+		 *  mine probability. */
+		GREEDY;
+
+		Player createPlayer(MinefieldModel board) {
+			switch (this) {
+				case RANDOM:	return new Player(board);
+				case SOLVER:	return new SolverPlayer(board);
+				default:		return new GreedyPlayer(board);
+			}
+		}
+	}
+
+
+	/** Totals of one batch of games. */
+	public static class Result {
+		public final int rows, columns, mines;
+		public final Strategy strategy;
+		public final int games;
+		private int wins;
+		private long clicks, threeBV, gameNanos, wallNanos;
+
+		Result(int rows, int columns, int mines, Strategy strategy, int games) {
+			this.rows = rows;
+			this.columns = columns;
+			this.mines = mines;
+			this.strategy = strategy;
+			this.games = games;
+		}
+
+		synchronized void add(int wins, long clicks, long threeBV, long gameNanos) {
+			this.wins += wins;
+			this.clicks += clicks;
+			this.threeBV += threeBV;
+			this.gameNanos += gameNanos;
+		}
+
+		public int getWins()				{ return wins; }
+		public double getWinRate()			{ return (double) wins / games; }
+		public double getAverageClicks()	{ return (double) clicks / games; }
+		public double getAverage3BV()		{ return (double) threeBV / games; }
+		public double getAverageMillis()	{ return gameNanos / 1e6 / games; }
+		public double getGamesPerSecond()	{ return games / (wallNanos / 1e9); }
+
+		/** Returns the totals as one CSV line, matching CSV_HEADER. */
+		public String toCSV() {
+			return String.format(Locale.ROOT, "%dx%dx%d,%s,%d,%d,%.4f,%.2f,%.2f,%.4f,%.1f",
+				rows, columns, mines, strategy.toString().toLowerCase(), games, wins,
+				getWinRate(), getAverageClicks(), getAverage3BV(), getAverageMillis(), getGamesPerSecond());
+		}
+	}
+
+
+	private final ExecutorService workers;
+	private final int threads;
+	private final long seed;
+
+	/** Creates a simulator with the given number of threads
+	 *  and base seed. */
+	public Simulator(int threads, long seed) {
+		this.threads = threads;
+		this.seed = seed;
+		workers = Executors.newFixedThreadPool(threads);
+	}
+
+	/** Plays a batch of games on boards of the given size
+	 *  and returns their totals. */
+	public Result run(final int rows, final int columns, final int mines,
+			final Strategy strategy, final int games) throws InterruptedException {
+		final Result result = new Result(rows, columns, mines, strategy, games);
+		final AtomicInteger next = new AtomicInteger();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+		for (int t = 0; t < threads; t++)
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					MinefieldModel board = new MinefieldModel(rows, columns);
+					Player player = strategy.createPlayer(board);
+					int first;
+					while ((first = next.getAndAdd(CHUNK_SIZE)) < games) {
+						int wins = 0;
+						long clicks = 0, threeBV = 0, nanos = 0;
+						for (int game = first; game < Math.min(first + CHUNK_SIZE, games); game++) {
+							long start = System.nanoTime();
+							SplittableRandom random = new SplittableRandom(seed + game * 0x9E3779B97F4A7C15L);
+							board.newGame(mines, random.nextLong());
+							clicks += player.play(random);
+							nanos += System.nanoTime() - start;
+							if (board.isCleared())
+								wins++;
+							threeBV += board.getMetrics().get3BV();
+						}
+						result.add(wins, clicks, threeBV, nanos);
+					}
+					return null;
+				}
+			});
+		long start = System.nanoTime();
+		for (Future<Void> f : workers.invokeAll(tasks))
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		result.wallNanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/** Stops the worker threads. */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+
+	/** Runs the simulations given on the command line
+	 *  and prints one CSV line for each. */
+	public static void main(String[] args) throws InterruptedException {
+		int games = 10000, threads = Runtime.getRuntime().availableProcessors();
+		long seed = MinefieldModel.newSeed();
+		List<int[]> boards = new ArrayList<int[]>();
+		List<Strategy> strategies = new ArrayList<Strategy>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + option);
+				String value = args[++i];
+				if (option.equals("-games"))
+					games = Integer.parseInt(value);
+				else if (option.equals("-threads"))
+					threads = Integer.parseInt(value);
+				else if (option.equals("-seed"))
+					seed = Long.parseLong(value);
+				else if (option.equals("-strategy"))
+					strategies.add(Strategy.valueOf(value.toUpperCase()));
+				else if (option.equals("-board"))
+					boards.add(parseBoard(value));
+				else
+					throw new IllegalArgumentException("Unknown option: " + option);
+			}
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage() != null ? e.getMessage() : e.toString());
+			System.err.println("Usage: Simulator [-games N] [-threads N] [-seed N]"
+				+ " [-board beginner|intermediate|expert|RxCxM]... [-strategy random|solver|greedy]...");
+			System.exit(2);
+		}
+		if (boards.isEmpty())
+			for (GameDifficulty d : GameDifficulty.values())
+				boards.add(new int[] { d.rows, d.columns, d.mines });
+		if (strategies.isEmpty())
+			for (Strategy s : Strategy.values())
+				strategies.add(s);
+
+		PrintStream out = System.out;
+		out.println(CSV_HEADER);
+		Simulator simulator = new Simulator(threads, seed);
+		try {
+			for (int[] b : boards)
+				for (Strategy s : strategies)
+					out.println(simulator.run(b[0], b[1], b[2], s, games).toCSV());
+		} finally {
+			simulator.shutdown();
+		}
+	}
+
+	/** Parses a difficulty name or a board written as rows x columns x mines. */
+	private static int[] parseBoard(String value) {
+		for (GameDifficulty d : GameDifficulty.values())
+			if (d.toString().equalsIgnoreCase(value))
+				return new int[] { d.rows, d.columns, d.mines };
+		String[] size = value.split("x");
+		if (size.length != 3)
+			throw new IllegalArgumentException("Invalid board: " + value);
+		int rows = Integer.parseInt(size[0]), columns = Integer.parseInt(size[1]), mines = Integer.parseInt(size[2]);
+		if (rows <= 0 || columns <= 0 || mines < 0 || mines > (long) rows * columns)
+			throw new IllegalArgumentException("Invalid board: " + value);
+		return new int[] { rows, columns, mines };
+	}
+
+
+	/**
+	 *Player class
+	 * Plays one board at a time by clicking random unrevealed cells.
+	 * Subclasses make better moves where they can, and fall back to guessing.
+	 */
+	static class Player {
+
+		final MinefieldModel board;
+		SplittableRandom random;
+
+		Player(MinefieldModel board) {
+			this.board = board;
+		}
+
+		/** Plays a new board until the game is over
+		 *  and returns the number of clicks used. */
+		int play(SplittableRandom random) {
+			this.random = random;
+			newGame();
+			int clicks = 0;
+			while (!board.isGameOver())
+				clicks += move();
+			return clicks;
+		}
+
+		void newGame() {
+		}
+
+		/** Makes one move and returns the number of clicks it took. */
+		int move() {
+			return reveal(guess());
+		}
+
+		/** Reveals a guessed cell and returns the number of clicks it took.
+		 *  If there was no cell left to guess, -1, the board is given up. */
+		int reveal(int cell) {
+			if (cell < 0) {
+				board.giveUp();
+				return 0;
+			}
+			board.reveal(cell);
+			return 1;
+		}
+
+		/** Returns a random cell that may be clicked. */
+		int guess() {
+			int cells = board.getCellCount();
+			for (int tries = 0; tries < 64; tries++) {
+				int cell = random.nextInt(cells);
+				if (isCandidate(cell))
+					return cell;
+			}
+			int offset = random.nextInt(cells);
+			for (int i = 0; i < cells; i++)
+				if (isCandidate((offset + i) % cells))
+					return (offset + i) % cells;
+			return -1;
+		}
+
+		boolean isCandidate(int cell) {
+			return !board.isRevealed(cell) && !board.isFlagged(cell);
+		}
+	}
+
+
+	/**
+	 *SolverPlayer class
+	 * Plays the cells the solver proves safe. Where a safe cell borders a
+	 * number whose mines are all known and that has other hidden cells
+	 * around it, the mines are flagged and the number is chorded instead.
+	 */
+	static class SolverPlayer extends Player {
+
+		final MinefieldSolver solver;
+
+		SolverPlayer(MinefieldModel board) {
+			super(board);
+			solver = new MinefieldSolver(board);
+		}
+
+		@Override
+		void newGame() {
+			solver.reset();
+		}
+
+		@Override
+		int move() {
+			solver.solve();
+			int cell = solver.nextSafeCell();
+			if (cell < 0)
+				return reveal(guess());
+			int number = findChord(cell);
+			if (number < 0) {
+				board.reveal(cell);
+				return 1;
+			}
+			return chord(number);
+		}
+
+		@Override
+		boolean isCandidate(int cell) {
+			return !board.isRevealed(cell) && !solver.isKnownMine(cell);
+		}
+
+		/** Returns a revealed number next to a safe cell that is worth
+		 *  chording, or -1 if there is none. */
+		private int findChord(int cell) {
+			int columns = board.getColumns();
+			int row = cell / columns, col = cell % columns;
+			for (int r = row - 1; r <= row + 1; r++)
+				for (int c = col - 1; c <= col + 1; c++) {
+					if (!board.isValidCellLocation(r, c))
+						continue;
+					int number = board.indexOf(r, c);
+					if (board.getVisibleNumber(number) > 0 && solver.getRemainingMines(number) == 0
+							&& countHidden(number) >= 2)
+						return number;
+				}
+			return -1;
+		}
+
+		/** Counts the hidden cells around a number that are not known mines. */
+		private int countHidden(int number) {
+			int count = 0, columns = board.getColumns();
+			int row = number / columns, col = number % columns;
+			for (int r = row - 1; r <= row + 1; r++)
+				for (int c = col - 1; c <= col + 1; c++)
+					if (board.isValidCellLocation(r, c) && isCandidate(board.indexOf(r, c)))
+						count++;
+			return count;
+		}
+
+		/** Flags the unflagged mines around a number, then chords it.
+		 *  Returns the number of clicks used. */
+		private int chord(int number) {
+			int clicks = 1, columns = board.getColumns();
+			int row = number / columns, col = number % columns;
+			for (int r = row - 1; r <= row + 1; r++)
+				for (int c = col - 1; c <= col + 1; c++) {
+					if (!board.isValidCellLocation(r, c))
+						continue;
+					int n = board.indexOf(r, c);
+					if (!board.isRevealed(n) && !board.isFlagged(n) && solver.isKnownMine(n)) {
+						board.toggleFlag(n);
+						clicks++;
+					}
+				}
+			board.forceRevealNeighbors(number);
+			return clicks;
+		}
+	}
+
+
+	/**
+	 *GreedyPlayer class
+	 * Plays like SolverPlayer, but guesses the cell with the lowest exact
+	 * mine probability. If the probabilities take more than
+	 * PROBABILITY_STEPS steps, it guesses at random.
+	 */
+	static class GreedyPlayer extends SolverPlayer {
+
+		private final MineProbability probability;
+
+		GreedyPlayer(MinefieldModel board) {
+			super(board);
+			probability = new MineProbability(solver);
+		}
+
+		@Override
+		int guess() {
+			if (board.isGameStarted() && probability.computeWithinSteps(PROBABILITY_STEPS)) {
+				int cell = probability.getSafestCell();
+				if (cell >= 0)
+					return cell;
+			}
+			return super.guess();
+		}
+	}
+}
@@ -1,45 +1,116 @@
 package Login_s;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  *Stopwatch class
- * Keeps track of elapsed time since it was started.
+ * Keeps track of elapsed time since it was started, leaving out the time
+ * it was paused. Uses System.nanoTime(), which is monotonic, so setting
+ * the system clock does not change the time measured. Laps split the
+ * elapsed time into parts.
  */
 
 public class Stopwatch {
-	
+
+	private static final long
+	NANOS_PER_MILLI = 1000000;
+
+	/** nanoTime of the last start or resume, while running */
 	private long startTime;
-	private long stopTime;
+	/** Time elapsed before the last start or resume, in nanoseconds */
+	private long elapsedBefore;
+	/** Elapsed time at the end of the last lap, in nanoseconds */
+	private long lapStart;
+	private final ArrayList<Long> laps = new ArrayList<Long>();
 	private boolean running;
-	
-	/** Saves the current system time and goes into running mode. */
+
+	/** Starts timing from zero and goes into running mode,
+	 *  unless it is running already. */
 	public void start() {
 		if (!running) {
-			startTime = System.currentTimeMillis();
+			elapsedBefore = lapStart = 0;
+			laps.clear();
+			startTime = System.nanoTime();
 			running = true;
 		}
 	}
-	
-	/** If in running mode, saves the current system time
-	 * and stops the running mode. */
+
+	/** If in running mode, saves the elapsed time
+	 * and stops the running mode. The stopwatch can still be resumed. */
 	public void stop() {
+		pause();
+	}
+
+	/** If in running mode, stops counting time until resume() is called. */
+	public void pause() {
 		if (running) {
-			stopTime = System.currentTimeMillis();
+			elapsedBefore += System.nanoTime() - startTime;
 			running = false;
 		}
 	}
-	
+
+	/** If not in running mode, goes on counting time from where
+	 *  it was paused or stopped. */
+	public void resume() {
+		if (!running) {
+			startTime = System.nanoTime();
+			running = true;
+		}
+	}
+
+	/** Returns true if the stopwatch is in running mode. */
+	public boolean isRunning() {
+		return running;
+	}
+
 	/** Resets the stopwatch to its initialization state */
 	public void reset() {
-		startTime = stopTime = 0;
+		elapsedBefore = lapStart = 0;
+		laps.clear();
 		running = false;
 	}
-	
+
+	/** Ends the current lap and starts the next one.
+	 *  Returns the time of the lap that ended, in milliseconds. */
+	public long lap() {
+		long now = getElapsedTimeNanos();
+		long lap = (now - lapStart) / NANOS_PER_MILLI;
+		laps.add(lap);
+		lapStart = now;
+		return lap;
+	}
+
+	/** Returns the times of all laps ended since the start, in milliseconds. */
+	public List<Long> getLaps() {
+		return Collections.unmodifiableList(laps);
+	}
+
+	/** Returns the time of the lap in progress, in milliseconds. */
+	public long getLapTimeMillis() {
+		return (getElapsedTimeNanos() - lapStart) / NANOS_PER_MILLI;
+	}
+
 	/** If stopwatch was started and stopped,
 	 *  returns elapsed time in seconds in between the start and stop calls.
 	 *  If the stopwatch is still in running,
 	 *  returns elapsed time since the start call.
+	 *  Time spent paused is not counted.
 	 *  If start was not called, returns zero. */
 	public int getElapsedTimeSecs() {
-		return (int)((running ? System.currentTimeMillis() : stopTime) - startTime) / 1000;
+		return (int) (getElapsedTimeMillis() / 1000);
+	}
+
+	/** Returns the elapsed time as getElapsedTimeSecs() does,
+	 *  in milliseconds. */
+	public long getElapsedTimeMillis() {
+		return getElapsedTimeNanos() / NANOS_PER_MILLI;
+	}
+
+	/** Returns the elapsed time as getElapsedTimeSecs() does,
+	 *  in nanoseconds. */
+	public long getElapsedTimeNanos() {
+		return elapsedBefore + (running ? System.nanoTime() - startTime : 0);
 	}
 }
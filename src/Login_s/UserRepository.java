@@ -0,0 +1,549 @@
+package Login_s;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+
+/**
+ *UserRepository class
+ * The registered players, read once from the accounts file into a hash
+ * index by user name, so checking a name or a login takes constant time
+ * however many players there are.
+ * The file is streamed with StAX rather than parsed into a DOM, so only
+ * the index is kept in memory; every Player element anywhere in it, with
+ * its UserName and Password, is one player.
+ *
+ * Registering a player does not rewrite the file. The player is appended
+ * to a journal next to it, as one entry with a CRC32 checksum, which
+ * costs O(1). register() returns once the entry is forced to disk; one
+ * committer thread forces all entries appended meanwhile at once, so
+ * concurrent registrations share a single fsync (group commit). If the
+ * fsync fails, the batch's entries are marked void in the journal, so
+ * they are never read as players. Loading replays the journal after the file,
+ * and cuts off a torn entry at its end. Once the journal holds
+ * COMPACT_THRESHOLD entries, the committer thread writes every player to
+ * a new accounts file, in the same XML format, which replaces the old one
+ * atomically before the journal is emptied.
+ *
+ * Several processes may share the files. Appending, loading and
+ * compacting hold an exclusive lock on the journal, so no process reads
+ * a half-written entry or replaces the file while another reads it.
+ * Under the lock, a process first reads the entries other processes
+ * appended since it last looked, so a user name is checked against
+ * every registered player before it is appended. The journal header
+ * holds a generation, which compacting increments; a process that finds
+ * a new generation reads the accounts file again.
+ */
+public class UserRepository {
+
+	/** The accounts file shared by Login and Register. */
+	public static final String
+	DEFAULT_FILE = "C:\\XML\\data.xml";
+
+	private static final String
+	PLAYERS		= "Players",
+	PLAYER		= "Player",
+	ID			= "Id",
+	USER_NAME	= "UserName",
+	PASSWORD	= "Password",
+	JOURNAL_SUFFIX	= ".journal";
+
+	private static final int
+	JOURNAL_MAGIC		= 0x4D53554A,	// "MSUJ"
+	JOURNAL_FORMAT		= 1,
+	JOURNAL_HEADER_SIZE	= 16,
+	ENTRY_HEADER_SIZE	= 8,
+	MAX_ENTRY_SIZE		= 64 * 1024,
+	COMPACT_THRESHOLD	= 1024;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static UserRepository defaultRepository;
+
+	private final File file, journalFile;
+	private final HashMap<String, String> passwords = new HashMap<String, String>();
+
+	/**
+	 *Batch class
+	 * The players appended to the journal that one fsync commits, where
+	 * their entries start and in which journal generation, and, if the
+	 * fsync failed, those that were not saved.
+	 */
+	private static final class Batch {
+		final HashMap<String, String> players = new HashMap<String, String>();
+		final HashMap<String, long[]> entries = new HashMap<String, long[]>();
+		final HashSet<String> failed = new HashSet<String>();
+		boolean done;
+		IOException error;
+	}
+
+	// The journal, opened by the first load or registration, the number
+	// of its entries, its generation when last read, or -1, and the end
+	// of the entries read or appended by this process
+	private FileChannel journal;
+	private int journalEntries;
+	private long generation = -1, journalRead;
+	// Set if an entry could be neither written whole nor cut off again
+	private IOException damaged;
+	// The batch being appended to, and the one being forced to disk
+	private Batch current = new Batch(), committing;
+	private Thread committer;
+
+	/** Creates an empty repository of the players in the given file;
+	 *  load() reads them. */
+	public UserRepository(File file) {
+		this.file = file;
+		journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+	}
+
+	/** Returns the repository of the default accounts file, reading the
+	 *  file the first time. If it cannot be read, the repository holds
+	 *  the players read before the error. */
+	public static synchronized UserRepository getDefault() {
+		if (defaultRepository == null) {
+			defaultRepository = new UserRepository(new File(DEFAULT_FILE));
+			try {
+				defaultRepository.load();
+			} catch (IOException e) {
+				System.out.println(e);
+			}
+		}
+		return defaultRepository;
+	}
+
+
+	/** Returns the accounts file. */
+	public File getFile() {
+		return file;
+	}
+
+	/** Reads the players of the file into the index, in one pass, and then
+	 *  those registered since, from the journal. A missing file holds no
+	 *  players. */
+	public synchronized void load() throws IOException {
+		passwords.clear();
+		generation = -1;
+		if (journalFile.exists())
+			lockJournal().release();
+		else if (file.exists())
+			readFile(passwords);
+	}
+
+	private void readFile(Map<String, String> players) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			String userName = null, password = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String element = reader.getLocalName();
+					if (PLAYER.equals(element))
+						userName = password = null;
+					else if (USER_NAME.equals(element))
+						userName = reader.getElementText();
+					else if (PASSWORD.equals(element))
+						password = reader.getElementText();
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT && PLAYER.equals(reader.getLocalName())
+						&& userName != null)
+					players.put(userName, password != null ? password : "");
+			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Cannot read " + file + ": " + e.getMessage(), e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Returns true if a player with the given user name is registered. */
+	public synchronized boolean contains(String userName) {
+		return passwords.containsKey(userName);
+	}
+
+	/** Returns true if a player is registered with the given user name
+	 *  and password. */
+	public synchronized boolean authenticate(String userName, String password) {
+		String registered = passwords.get(userName);
+		return registered != null && registered.equals(password);
+	}
+
+	/** Registers a player, unless the user name is already registered,
+	 *  and returns once the player is safely on disk; only then do
+	 *  contains() and authenticate() know the player. Returns false if the
+	 *  user name is already registered, or being registered. */
+	public boolean register(String userName, String password) throws IOException {
+		ByteBuffer entry = encodeEntry(userName, password);
+		synchronized (this) {
+			if (isTaken(userName))
+				return false;
+			if (damaged != null)
+				throw new IOException("The journal is damaged; restart to repair it", damaged);
+			FileLock lock = lockJournal();
+			try {
+				// other processes may have registered the name meanwhile
+				if (isTaken(userName))
+					return false;
+				current.entries.put(userName, new long[] { append(entry), generation });
+			} finally {
+				if (lock.isValid())
+					lock.release();
+			}
+			Batch batch = current;
+			batch.players.put(userName, password);
+			journalEntries++;
+			notifyAll();
+			while (!batch.done)
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted before the player was saved", e);
+				}
+			if (batch.failed.contains(userName))
+				throw new IOException("Cannot save " + userName + ": " + batch.error.getMessage(), batch.error);
+		}
+		return true;
+	}
+
+	/** Returns the number of registered players. */
+	public synchronized int size() {
+		return passwords.size();
+	}
+
+	/** Writes every player to a new accounts file, which replaces the old
+	 *  one atomically, and empties the journal. Other processes may share
+	 *  the journal, so the file and the journal are read again, under the
+	 *  journal lock, and the players they registered are kept too. */
+	public synchronized void compact() throws IOException {
+		FileLock lock = lockJournal();
+		try {
+			// players still being committed are in the journal too
+			HashMap<String, String> players = new HashMap<String, String>(passwords);
+			players.putAll(current.players);
+			if (committing != null)
+				players.putAll(committing.players);
+			writeFile(players);
+			journal.truncate(JOURNAL_HEADER_SIZE);
+			writeJournalHeader(generation + 1);
+			journal.force(true);
+			generation++;
+			journalRead = JOURNAL_HEADER_SIZE;
+			journalEntries = 0;
+		} finally {
+			lock.release();
+		}
+	}
+
+	/** Returns true if the user name is registered, or being registered. */
+	private boolean isTaken(String userName) {
+		return passwords.containsKey(userName) || current.players.containsKey(userName)
+			|| (committing != null && committing.players.containsKey(userName));
+	}
+
+
+	/** Writes the players to a new accounts file, which replaces the old
+	 *  one atomically. */
+	private void writeFile(Map<String, String> players) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			XMLStreamWriter writer = XMLOutputFactory.newInstance()
+				.createXMLStreamWriter(new BufferedOutputStream(out), "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement(PLAYERS);
+			int id = 0;
+			for (Map.Entry<String, String> player : players.entrySet()) {
+				writer.writeStartElement(PLAYER);
+				writer.writeAttribute(ID, Integer.toString(++id));
+				writer.writeStartElement(USER_NAME);
+				writer.writeCharacters(player.getKey());
+				writer.writeEndElement();
+				writer.writeStartElement(PASSWORD);
+				writer.writeCharacters(player.getValue());
+				writer.writeEndElement();
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+			out.flush();
+			out.getFD().sync();
+		} catch (XMLStreamException e) {
+			throw new IOException("Cannot write " + temp + ": " + e.getMessage(), e);
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/** Encodes a player as a journal entry: its length and checksum,
+	 *  then the length of the user name, the user name and the password. */
+	private static ByteBuffer encodeEntry(String userName, String password) throws IOException {
+		byte[] name = userName.getBytes(UTF8), pass = password.getBytes(UTF8);
+		int length = 4 + name.length + pass.length;
+		if (length > MAX_ENTRY_SIZE)
+			throw new IOException("User name or password too long");
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + length);
+		entry.putInt(length).putInt(0).putInt(name.length).put(name).put(pass);
+		CRC32 crc = new CRC32();
+		crc.update(entry.array(), ENTRY_HEADER_SIZE, length);
+		entry.putInt(4, (int) crc.getValue());
+		entry.flip();
+		return entry;
+	}
+
+	/** Reads what other processes changed since the journal was last
+	 *  read: all of the accounts file and the journal if it was compacted,
+	 *  and otherwise only the entries appended since. A new journal gets
+	 *  a header, and one from before headers were written is merged into
+	 *  the file first. The journal must be locked. */
+	private void catchUp() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+		long size = journal.size();
+		if (size >= JOURNAL_HEADER_SIZE)
+			while (header.hasRemaining() && journal.read(header, header.position()) >= 0)
+				;
+		if (size == 0)
+			writeJournalHeader(generation + 1);
+		else if (size < JOURNAL_HEADER_SIZE || header.getInt(0) != JOURNAL_MAGIC)
+			upgradeJournal();
+		else if (header.getInt(4) != JOURNAL_FORMAT)
+			throw new IOException("Unknown journal format: " + journalFile);
+		else if (header.getLong(8) == generation) {
+			journalRead = replayJournal(passwords, journalRead);
+			return;
+		}
+		else
+			generation = header.getLong(8);
+		passwords.clear();
+		if (file.exists())
+			readFile(passwords);
+		journalEntries = 0;
+		journalRead = replayJournal(passwords, JOURNAL_HEADER_SIZE);
+	}
+
+	/** Merges a journal without a header into the accounts file, and
+	 *  starts it again with a header. The journal must be locked. */
+	private void upgradeJournal() throws IOException {
+		HashMap<String, String> players = new HashMap<String, String>();
+		if (file.exists())
+			readFile(players);
+		replayJournal(players, 0);
+		writeFile(players);
+		journal.truncate(0);
+		writeJournalHeader(generation + 1);
+	}
+
+	/** Writes the journal header with a new generation, and forces it. */
+	private void writeJournalHeader(long newGeneration) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+		header.putInt(JOURNAL_MAGIC).putInt(JOURNAL_FORMAT).putLong(newGeneration);
+		header.flip();
+		while (header.hasRemaining())
+			journal.write(header, header.position());
+		journal.force(true);
+		generation = newGeneration;
+	}
+
+	/** Adds the players in the journal from the given position on to the
+	 *  given ones, and cuts the journal off at the first entry that is torn
+	 *  or fails its checksum. Returns the end of the entries read. The
+	 *  journal must be locked. */
+	private long replayJournal(Map<String, String> players, long position) throws IOException {
+		long size = journal.size();
+		ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		while (position + ENTRY_HEADER_SIZE <= size) {
+			header.clear();
+			journal.read(header, position);
+			int length = header.getInt(0), checksum = header.getInt(4);
+			if (length <= -4 && length >= -MAX_ENTRY_SIZE && position + ENTRY_HEADER_SIZE - length <= size) {
+				// a void entry, whose fsync failed
+				position += ENTRY_HEADER_SIZE - length;
+				continue;
+			}
+			if (length < 4 || length > MAX_ENTRY_SIZE || position + ENTRY_HEADER_SIZE + length > size)
+				break;
+			ByteBuffer entry = ByteBuffer.allocate(length);
+			journal.read(entry, position + ENTRY_HEADER_SIZE);
+			crc.reset();
+			crc.update(entry.array(), 0, length);
+			int nameLength = entry.getInt(0);
+			if ((int) crc.getValue() != checksum || nameLength < 0 || nameLength > length - 4)
+				break;
+			players.put(new String(entry.array(), 4, nameLength, UTF8),
+				new String(entry.array(), 4 + nameLength, length - 4 - nameLength, UTF8));
+			journalEntries++;
+			position += ENTRY_HEADER_SIZE + length;
+		}
+		if (position < size) {
+			journal.truncate(position);
+			journal.force(true);
+		}
+		return position;
+	}
+
+	/** Writes an entry at the end of the journal. If it cannot be written
+	 *  whole, the journal is cut back to where it ended, so a torn entry
+	 *  never hides the ones appended after it. The journal must be locked,
+	 *  and read up to its end. Returns where the entry starts. */
+	private long append(ByteBuffer entry) throws IOException {
+		long start = journalRead;
+		try {
+			while (entry.hasRemaining())
+				journal.write(entry, start + entry.position());
+		} catch (IOException e) {
+			try {
+				journal.truncate(start);
+			} catch (IOException f) {
+				e.addSuppressed(f);
+				damaged = e;
+			}
+			throw e;
+		}
+		journalRead = start + entry.capacity();
+		return start;
+	}
+
+	/** Marks the entries of a batch whose fsync failed as void, by negating
+	 *  their length, so they are skipped rather than read as players.
+	 *  Entries a compaction has written to the accounts file since are
+	 *  saved there, and are not marked. If the entries cannot be marked,
+	 *  they may still be read back later, so no more players are
+	 *  registered until a restart. */
+	private void voidEntries(Batch batch, IOException error) {
+		batch.failed.addAll(batch.players.keySet());
+		try {
+			FileLock lock = lockJournal();
+			try {
+				ByteBuffer length = ByteBuffer.allocate(4);
+				for (Map.Entry<String, long[]> entry : batch.entries.entrySet()) {
+					long position = entry.getValue()[0];
+					if (entry.getValue()[1] != generation) {
+						batch.failed.remove(entry.getKey());
+						continue;
+					}
+					length.clear();
+					while (length.hasRemaining() && journal.read(length, position + length.position()) >= 0)
+						;
+					length.putInt(0, -length.getInt(0));
+					length.flip();
+					while (length.hasRemaining())
+						journal.write(length, position + length.position());
+				}
+				journal.force(false);
+			} finally {
+				if (lock.isValid())
+					lock.release();
+			}
+		} catch (IOException e) {
+			error.addSuppressed(e);
+			damaged = error;
+		}
+	}
+
+	/** Locks the journal exclusively, opening it first if need be, and
+	 *  reads what other processes changed since. */
+	private FileLock lockJournal() throws IOException {
+		openJournal();
+		FileLock lock = journal.lock();
+		try {
+			catchUp();
+		} catch (IOException e) {
+			lock.release();
+			throw e;
+		}
+		return lock;
+	}
+
+	/** Opens the journal, and starts the committer thread, which forces
+	 *  every entry appended meanwhile to disk at once. */
+	private void openJournal() throws IOException {
+		if (journal != null)
+			return;
+		File dir = journalFile.getParentFile();
+		if (dir != null)
+			dir.mkdirs();
+		journal = FileChannel.open(journalFile.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		committer = new Thread(new Runnable() {
+			public void run() {
+				commitEntries();
+			}
+		}, "UserRepository committer");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/** Body of the committer thread, which also compacts the journal
+	 *  once it is long enough. Each batch is forced once; if that fails,
+	 *  its entries are made void, its players are told so and are not
+	 *  registered, and the thread waits for new entries rather than
+	 *  trying again. */
+	private void commitEntries() {
+		while (true) {
+			Batch batch;
+			synchronized (this) {
+				while (current.players.isEmpty())
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				batch = committing = current;
+				current = new Batch();
+			}
+			IOException error = null;
+			try {
+				journal.force(false);
+			} catch (IOException e) {
+				error = e;
+			}
+			synchronized (this) {
+				if (error != null)
+					voidEntries(batch, error);
+				for (Map.Entry<String, String> player : batch.players.entrySet())
+					if (!batch.failed.contains(player.getKey()))
+						passwords.put(player.getKey(), player.getValue());
+				batch.error = error;
+				batch.done = true;
+				committing = null;
+				notifyAll();
+				if (error == null && journalEntries >= COMPACT_THRESHOLD)
+					try {
+						compact();
+					} catch (IOException e) {
+						// the journal still holds every player; try again later
+					}
+			}
+		}
+	}
+}